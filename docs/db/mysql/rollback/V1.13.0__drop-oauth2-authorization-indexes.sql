@@ -0,0 +1,9 @@
+DROP INDEX oauth2_authorization_principal_name_idx ON identity.oauth2_authorization;
+DROP INDEX oauth2_authorization_access_token_value_idx ON identity.oauth2_authorization;
+DROP INDEX oauth2_authorization_refresh_token_value_idx ON identity.oauth2_authorization;
+DROP INDEX oauth2_authorization_expires_at_idx ON identity.oauth2_authorization;
+ALTER TABLE identity.oauth2_authorization DROP COLUMN expires_at;
+
+DELETE FROM identity.flyway_schema_history WHERE script = "V1.13.0__add-oauth2-authorization-indexes.sql";
+
+COMMIT;
@@ -0,0 +1,5 @@
+DROP TABLE identity.scheduler_lock;
+
+DELETE FROM identity.flyway_schema_history WHERE script = "V1.13.1__create-scheduler-lock-table.sql";
+
+COMMIT;
@@ -0,0 +1,5 @@
+DROP TABLE identity.signing_key;
+
+DELETE FROM identity.flyway_schema_history WHERE script = "V1.14.0__create-signing-key-table.sql";
+
+COMMIT;
@@ -0,0 +1,7 @@
+DROP TABLE identity.agency_token_capacity;
+
+DROP INDEX identity_agency_token_uid_idx ON identity.identity;
+
+DELETE FROM identity.flyway_schema_history WHERE script = "V1.15.0__create-agency-token-capacity-table.sql";
+
+COMMIT;
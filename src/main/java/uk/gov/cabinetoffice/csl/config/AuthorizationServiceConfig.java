@@ -0,0 +1,76 @@
+package uk.gov.cabinetoffice.csl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationConsentService;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsentService;
+import org.springframework.security.oauth2.server.authorization.client.JdbcRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import uk.gov.cabinetoffice.csl.repository.Oauth2AuthorizationRepository;
+import uk.gov.cabinetoffice.csl.service.auth2.CachingRegisteredClientRepository;
+import uk.gov.cabinetoffice.csl.service.auth2.ClientSecretVerificationCache;
+import uk.gov.cabinetoffice.csl.service.auth2.IOAuth2AuthorizationService;
+import uk.gov.cabinetoffice.csl.service.auth2.JdbcAuthorizationService;
+import uk.gov.cabinetoffice.csl.service.auth2.PrincipalDenylistAuthorizationService;
+import uk.gov.cabinetoffice.csl.service.auth2.RedisAuthorizationService;
+import uk.gov.cabinetoffice.csl.service.auth2.StatelessClientCredentialsAuthorizationService;
+import uk.gov.cabinetoffice.csl.service.auth2.TokenDenylistService;
+import uk.gov.cabinetoffice.csl.service.cache.CacheInvalidationBroker;
+
+import java.time.Clock;
+
+import static java.time.Duration.ofSeconds;
+
+@Configuration
+public class AuthorizationServiceConfig {
+
+    @Bean
+    public CachingRegisteredClientRepository registeredClientRepository(
+            JdbcTemplate jdbcTemplate, Clock clock, MeterRegistry meterRegistry,
+            ClientSecretVerificationCache clientSecretVerificationCache, CacheInvalidationBroker cacheInvalidationBroker,
+            @Value("${oauth2.registeredClientCache.ttlSeconds}") long ttlSeconds) {
+        CachingRegisteredClientRepository registeredClientRepository = new CachingRegisteredClientRepository(
+                new JdbcRegisteredClientRepository(jdbcTemplate), ofSeconds(ttlSeconds), clock, meterRegistry);
+        registeredClientRepository.addEvictionListener(clientSecretVerificationCache::evictAll);
+        cacheInvalidationBroker.addListener(CachingRegisteredClientRepository.CACHE_NAME,
+                registeredClientRepository::evictAll);
+        return registeredClientRepository;
+    }
+
+    @Bean
+    public OAuth2AuthorizationConsentService authorizationConsentService(JdbcTemplate jdbcTemplate,
+                                                                        RegisteredClientRepository registeredClientRepository) {
+        return new JdbcOAuth2AuthorizationConsentService(jdbcTemplate, registeredClientRepository);
+    }
+
+    @Bean
+    public IOAuth2AuthorizationService authorizationService(
+            JdbcTemplate jdbcTemplate, RegisteredClientRepository registeredClientRepository,
+            Oauth2AuthorizationRepository oauth2AuthorizationRepository,
+            ObjectProvider<RedisConnectionFactory> redisConnectionFactory, Clock clock,
+            JwtDecoder jwtDecoder, TokenDenylistService tokenDenylistService,
+            @Value("${oauth2.authorizationService.store}") String store,
+            @Value("${oauth2.authorizationService.redis.keyPrefix}") String keyPrefix,
+            @Value("${oauth2.authorizationService.redis.defaultTtlSeconds}") long defaultTtlSeconds,
+            @Value("${oauth2.clientCredentials.stateless}") boolean statelessClientCredentials,
+            @Value("${oauth2.logout.asyncCleanup}") boolean asyncLogoutCleanup) {
+        IOAuth2AuthorizationService authorizationService = "redis".equalsIgnoreCase(store)
+                ? new RedisAuthorizationService(redisConnectionFactory.getObject(), keyPrefix,
+                        ofSeconds(defaultTtlSeconds), clock)
+                : new JdbcAuthorizationService(jdbcTemplate, registeredClientRepository, oauth2AuthorizationRepository);
+        if (statelessClientCredentials) {
+            authorizationService = new StatelessClientCredentialsAuthorizationService(authorizationService,
+                    registeredClientRepository, jwtDecoder, tokenDenylistService);
+        }
+        if (asyncLogoutCleanup) {
+            authorizationService = new PrincipalDenylistAuthorizationService(authorizationService, tokenDenylistService);
+        }
+        return authorizationService;
+    }
+}
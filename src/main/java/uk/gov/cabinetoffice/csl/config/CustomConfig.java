@@ -1,32 +1,34 @@
 package uk.gov.cabinetoffice.csl.config;
 
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.OctetSequenceKey;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.authorization.config.annotation.web.configuration.OAuth2AuthorizationServerConfiguration;
 import org.springframework.session.data.redis.config.ConfigureRedisAction;
+import uk.gov.cabinetoffice.csl.service.auth2.CachingJwtDecoder;
+import uk.gov.cabinetoffice.csl.service.auth2.SigningKeyService;
 
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
+import java.time.Clock;
+
+import static java.time.Duration.ofSeconds;
 
 @NoArgsConstructor
 @Configuration
 public class CustomConfig {
 
-    @Value("${oauth2.jwtKey}")
-    private String jwtKey;
+    @Value("${oauth2.jwtDecoderCache.maximumSize}")
+    private long jwtDecoderCacheMaximumSize;
+
+    @Value("${oauth2.jwtDecoderCache.maximumTtlSeconds}")
+    private long jwtDecoderCacheMaximumTtlSeconds;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -34,21 +36,19 @@ public class CustomConfig {
     }
 
     @Bean
-    public JWKSource<SecurityContext> jwkSource() {
-        SecretKey secretKey = new SecretKeySpec(jwtKey.getBytes(), "HMACSHA256");
-        JWK jwk = new OctetSequenceKey.Builder(secretKey).algorithm(JWSAlgorithm.HS256).build();
-        JWKSet jwkSet = new JWKSet(jwk);
-        return (jwkSelector, securityContext) -> jwkSelector.select(jwkSet);
+    public JWKSource<SecurityContext> jwkSource(SigningKeyService signingKeyService) {
+        return (jwkSelector, securityContext) -> jwkSelector.select(signingKeyService.getJwkSet());
     }
 
     @Bean
-    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource) {
-        return OAuth2AuthorizationServerConfiguration.jwtDecoder(jwkSource);
+    public CachingJwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource, Clock clock, MeterRegistry meterRegistry) {
+        return new CachingJwtDecoder(OAuth2AuthorizationServerConfiguration.jwtDecoder(jwkSource),
+                jwtDecoderCacheMaximumSize, ofSeconds(jwtDecoderCacheMaximumTtlSeconds), clock, meterRegistry);
     }
 
     @Bean
-    public JwtEncoder jwtEncoder() {
-        return new NimbusJwtEncoder(jwkSource());
+    public JwtEncoder jwtEncoder(JWKSource<SecurityContext> jwkSource) {
+        return new NimbusJwtEncoder(jwkSource);
     }
 
     @Bean
@@ -1,12 +1,23 @@
 package uk.gov.cabinetoffice.csl.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import uk.gov.cabinetoffice.csl.service.cache.CacheInvalidationBroker;
+import uk.gov.cabinetoffice.csl.service.cache.NearCacheManager;
+import uk.gov.cabinetoffice.csl.service.client.csrs.OrganisationalUnitsRedisSerializer;
+
+import java.util.Set;
 
 import static java.time.Duration.ofSeconds;
 import static org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig;
+import static org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer;
 
 @Configuration
 public class RedisCacheConfig {
@@ -20,6 +31,18 @@ public class RedisCacheConfig {
     @Value("${civilServantRegistry.organisations.cache.ttlSeconds}")
     private int organisationsCacheTTlSeconds;
 
+    @Value("${civilServantRegistry.agencyTokens.cache.ttlSeconds}")
+    private int agencyTokensCacheTTlSeconds;
+
+    @Value("${civilServantRegistry.agencyTokensNegative.cache.ttlSeconds}")
+    private int agencyTokensNegativeCacheTTlSeconds;
+
+    @Value("${oauth2.revokedTokens.cache.ttlSeconds}")
+    private int revokedTokensCacheTTlSeconds;
+
+    @Value("${oauth2.revokedPrincipals.cache.ttlSeconds}")
+    private int revokedPrincipalsCacheTTlSeconds;
+
     @Bean
     public RedisCacheManagerBuilderCustomizer redisCacheManagerBuilderCustomizer() {
         return (builder) -> builder
@@ -28,10 +51,52 @@ public class RedisCacheConfig {
                                 .disableCachingNullValues()
                                 .entryTtl(ofSeconds(allowListDomainsCacheTTlSeconds))
                                 .prefixCacheNameWith(redisCacheKeyPrefix))
+                // Written under its own key, as nodes still running the JDK format cannot read the compact one
                 .withCacheConfiguration("organisations",
                         defaultCacheConfig()
                                 .disableCachingNullValues()
+                                .serializeValuesWith(fromSerializer(new OrganisationalUnitsRedisSerializer()))
                                 .entryTtl(ofSeconds(organisationsCacheTTlSeconds))
+                                .computePrefixWith(cacheName -> redisCacheKeyPrefix + cacheName + "-v2::"))
+                .withCacheConfiguration("agencyTokens",
+                        defaultCacheConfig()
+                                .disableCachingNullValues()
+                                .entryTtl(ofSeconds(agencyTokensCacheTTlSeconds))
+                                .prefixCacheNameWith(redisCacheKeyPrefix))
+                .withCacheConfiguration("agencyTokensNegative",
+                        defaultCacheConfig()
+                                .disableCachingNullValues()
+                                .entryTtl(ofSeconds(agencyTokensNegativeCacheTTlSeconds))
+                                .prefixCacheNameWith(redisCacheKeyPrefix))
+                .withCacheConfiguration("revokedTokens",
+                        defaultCacheConfig()
+                                .disableCachingNullValues()
+                                .entryTtl(ofSeconds(revokedTokensCacheTTlSeconds))
+                                .prefixCacheNameWith(redisCacheKeyPrefix))
+                .withCacheConfiguration("revokedPrincipals",
+                        defaultCacheConfig()
+                                .disableCachingNullValues()
+                                .entryTtl(ofSeconds(revokedPrincipalsCacheTTlSeconds))
                                 .prefixCacheNameWith(redisCacheKeyPrefix));
     }
+
+    // Wraps the Redis cache manager so the caches in nearCache.cacheNames are also held in process
+    @Bean
+    public static BeanPostProcessor nearCacheManagerPostProcessor(Environment environment,
+                                                                  ObjectProvider<CacheInvalidationBroker> cacheInvalidationBroker,
+                                                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof RedisCacheManager redisCacheManager)) {
+                    return bean;
+                }
+                return new NearCacheManager(redisCacheManager,
+                        Set.of(environment.getRequiredProperty("nearCache.cacheNames", String[].class)),
+                        environment.getRequiredProperty("nearCache.maximumSize", Long.class),
+                        ofSeconds(environment.getRequiredProperty("nearCache.ttlSeconds", Long.class)),
+                        cacheInvalidationBroker.getObject(), meterRegistry.getObject());
+            }
+        };
+    }
 }
@@ -1,12 +1,16 @@
 package uk.gov.cabinetoffice.csl.controller.agencytoken;
 
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.UidList;
 import uk.gov.cabinetoffice.csl.service.AgencyTokenCapacityService;
 
+import java.util.Map;
+
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 
 @Slf4j
@@ -30,6 +34,17 @@ public class AgencyTokenController {
         }
     }
 
+    @PostMapping("/usage")
+    public ResponseEntity<Map<String, Long>> getSpacesUsedForAgencyTokens(@RequestBody @Valid UidList uids) {
+        log.debug("Getting spaces used for {} agency tokens", uids.getUids().size());
+        try {
+            return ResponseEntity.ok(agencyTokenCapacityService.getSpacesUsedByAgencyTokens(uids.getUids()));
+        } catch (Exception e) {
+            log.error("Unexpected error calling getSpacesUsedForAgencyTokens with uids = {}, {}", uids.getUids(), e.toString());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @DeleteMapping("/{uid}")
     public ResponseEntity deleteAgencyToken(@PathVariable(value = "uid") String uid) {
         log.debug("Deleting agency token {}", uid);
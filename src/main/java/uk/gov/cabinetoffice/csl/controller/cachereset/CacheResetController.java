@@ -7,19 +7,23 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import uk.gov.cabinetoffice.csl.service.CsrsService;
-import uk.gov.cabinetoffice.csl.service.client.identity.IIdentityClient;
+import uk.gov.cabinetoffice.csl.service.auth2.CachingRegisteredClientRepository;
+import uk.gov.cabinetoffice.csl.service.auth2.ServiceTokenHolder;
+import uk.gov.cabinetoffice.csl.service.cache.CacheInvalidationBroker;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping("/reset-cache")
 public class CacheResetController {
 
-    private final IIdentityClient identityClient;
+    private final ServiceTokenHolder serviceTokenHolder;
     private final CsrsService csrsService;
+    private final CachingRegisteredClientRepository registeredClientRepository;
+    private final CacheInvalidationBroker cacheInvalidationBroker;
 
     @GetMapping(path = "/service-token", produces = "application/json")
     public ResponseEntity<?> evictServiceTokenFromCache() {
-        identityClient.evictServiceTokenFromCache();
+        serviceTokenHolder.evict();
         return new ResponseEntity<>(HttpStatus.ACCEPTED);
     }
 
@@ -34,4 +38,17 @@ public class CacheResetController {
         csrsService.evictOrganisationsCache();
         return new ResponseEntity<>(HttpStatus.ACCEPTED);
     }
+
+    @GetMapping(path = "/agency-tokens", produces = "application/json")
+    public ResponseEntity<?> evictAgencyTokenCaches() {
+        csrsService.evictAgencyTokenCaches();
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping(path = "/registered-clients", produces = "application/json")
+    public ResponseEntity<?> evictRegisteredClientCache() {
+        registeredClientRepository.evictAll();
+        cacheInvalidationBroker.publish(CachingRegisteredClientRepository.CACHE_NAME);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
 }
@@ -0,0 +1,27 @@
+package uk.gov.cabinetoffice.csl.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// The number of identities assigned to an agency token, maintained alongside identity.agency_token_uid
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "agency_token_capacity")
+public class AgencyTokenCapacity {
+
+    @Id
+    @Column(length = 36, nullable = false)
+    private String agencyTokenUid;
+
+    @Column(nullable = false)
+    private Long spacesUsed;
+}
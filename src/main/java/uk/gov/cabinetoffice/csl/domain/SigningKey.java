@@ -0,0 +1,46 @@
+package uk.gov.cabinetoffice.csl.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "signing_key")
+public class SigningKey {
+
+    @Id
+    @Column(length = 100, nullable = false)
+    private String kid;
+
+    @Column(length = 10, nullable = false)
+    private String algorithm;
+
+    // Encrypted JWK including the private key
+    @Column(length = 4000, nullable = false)
+    private String privateKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Published from creation, used for signing from activatesAt until deactivatesAt
+    // and kept in the JWK set until expiresAt so issued tokens remain verifiable
+    @Column(nullable = false)
+    private LocalDateTime activatesAt;
+
+    @Column(nullable = false)
+    private LocalDateTime deactivatesAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -1,5 +1,6 @@
 package uk.gov.cabinetoffice.csl.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.AllArgsConstructor;
@@ -37,6 +38,11 @@ public class OrganisationalUnit implements Serializable {
                 .collect(toList());
     }
 
+    @JsonIgnore
+    public List<Domain> getLinkedDomains() {
+        return domains;
+    }
+
     public boolean doesDomainExist(String domain) {
         return isDomainLinked(domain) || isDomainAgencyAssigned(domain);
     }
@@ -0,0 +1,19 @@
+package uk.gov.cabinetoffice.csl.exception;
+
+public class ClientErrorResponseException extends GenericServerException {
+
+    private final int statusCode;
+
+    public ClientErrorResponseException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isNotFound() {
+        return statusCode == 404;
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.cabinetoffice.csl.handler;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2TokenRevocationAuthenticationToken;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.service.auth2.IOAuth2AuthorizationService;
+import uk.gov.cabinetoffice.csl.service.auth2.TokenDenylistService;
+import uk.gov.cabinetoffice.csl.service.auth2.TokenIntrospectionCache;
+
+@Slf4j
+@Component
+public class CustomTokenRevocationSuccessHandler implements AuthenticationSuccessHandler {
+
+    private final TokenIntrospectionCache tokenIntrospectionCache;
+    private final IOAuth2AuthorizationService authorizationService;
+    private final TokenDenylistService tokenDenylistService;
+
+    public CustomTokenRevocationSuccessHandler(TokenIntrospectionCache tokenIntrospectionCache,
+                                               IOAuth2AuthorizationService authorizationService,
+                                               TokenDenylistService tokenDenylistService) {
+        this.tokenIntrospectionCache = tokenIntrospectionCache;
+        this.authorizationService = authorizationService;
+        this.tokenDenylistService = tokenDenylistService;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) {
+        if (authentication instanceof OAuth2TokenRevocationAuthenticationToken tokenRevocationAuthentication) {
+            String token = tokenRevocationAuthentication.getToken();
+            tokenIntrospectionCache.evict(token);
+            // Revoking a refresh token also invalidates the access token of the same authorization
+            OAuth2Authorization authorization = authorizationService.findByToken(token, null);
+            if (authorization != null && authorization.getAccessToken() != null) {
+                OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+                tokenIntrospectionCache.evict(accessToken.getToken().getTokenValue());
+                // Other nodes may still hold the access token in their introspection caches
+                Object jti = accessToken.getClaims() != null ? accessToken.getClaims().get(JwtClaimNames.JTI) : null;
+                if (jti != null) {
+                    tokenDenylistService.denyToken(jti.toString(), accessToken.getToken().getExpiresAt());
+                }
+            }
+            log.debug("CustomTokenRevocationSuccessHandler: revoked token evicted from the introspection cache");
+        }
+        response.setStatus(HttpStatus.OK.value());
+    }
+}
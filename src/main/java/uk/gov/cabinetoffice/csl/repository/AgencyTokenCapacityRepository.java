@@ -0,0 +1,44 @@
+package uk.gov.cabinetoffice.csl.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity;
+
+import java.util.Optional;
+
+@Repository
+public interface AgencyTokenCapacityRepository extends CrudRepository<AgencyTokenCapacity, String> {
+
+    // Read as a value so that counters updated earlier in the same transaction are not served stale
+    @Query("SELECT spacesUsed FROM AgencyTokenCapacity WHERE agencyTokenUid = :agencyTokenUid")
+    Optional<Long> findSpacesUsed(String agencyTokenUid);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AgencyTokenCapacity SET spacesUsed = spacesUsed + :delta WHERE agencyTokenUid = :agencyTokenUid")
+    int addSpacesUsed(String agencyTokenUid, long delta);
+
+    // The row lock taken here is held until the calling transaction ends, so concurrent reservations on the same
+    // agency token queue behind each other while other agency tokens are unaffected
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AgencyTokenCapacity SET spacesUsed = spacesUsed + 1" +
+            " WHERE agencyTokenUid = :agencyTokenUid AND spacesUsed < :capacity")
+    int reserveSpace(String agencyTokenUid, long capacity);
+
+    // Seeds the counter from the identity table, leaving a counter created concurrently untouched
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT IGNORE INTO agency_token_capacity (agency_token_uid, spaces_used)" +
+            " SELECT :agencyTokenUid, COUNT(*) FROM identity WHERE agency_token_uid = :agencyTokenUid",
+            nativeQuery = true)
+    int insertIfAbsent(String agencyTokenUid);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AgencyTokenCapacity WHERE agencyTokenUid = :agencyTokenUid")
+    void removeAgencyToken(String agencyTokenUid);
+}
@@ -5,9 +5,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity;
 import uk.gov.cabinetoffice.csl.domain.Identity;
 import uk.gov.cabinetoffice.csl.dto.IdentityDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +39,10 @@ public interface IdentityRepository extends JpaRepository<Identity, Long> {
 
         Long countByAgencyTokenUid(String uid);
 
+        @Query("select new uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity(i.agencyTokenUid, count(i))" +
+                " from Identity i where i.agencyTokenUid in (?1) group by i.agencyTokenUid")
+        List<AgencyTokenCapacity> countByAgencyTokenUids(Collection<String> uids);
+
         @Transactional
         @Modifying(flushAutomatically = true, clearAutomatically = true)
         @Query("UPDATE Identity SET agencyTokenUid = null WHERE agencyTokenUid IS NOT NULL" +
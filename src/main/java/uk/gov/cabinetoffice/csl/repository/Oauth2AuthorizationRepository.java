@@ -1,5 +1,7 @@
 package uk.gov.cabinetoffice.csl.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -9,5 +11,7 @@ import uk.gov.cabinetoffice.csl.domain.Oauth2Authorization;
 public interface Oauth2AuthorizationRepository extends CrudRepository<Oauth2Authorization, Long> {
 
     @Transactional
-    Long deleteByPrincipalName(String principalName);
+    @Modifying
+    @Query("DELETE FROM Oauth2Authorization WHERE principalName = :principalName")
+    int deleteAllByPrincipalName(String principalName);
 }
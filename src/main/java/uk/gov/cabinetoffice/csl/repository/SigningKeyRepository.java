@@ -0,0 +1,18 @@
+package uk.gov.cabinetoffice.csl.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.cabinetoffice.csl.domain.SigningKey;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends CrudRepository<SigningKey, String> {
+
+    List<SigningKey> findByExpiresAtAfter(LocalDateTime dateTime);
+
+    @Transactional
+    long deleteByExpiresAtLessThanEqual(LocalDateTime dateTime);
+}
@@ -0,0 +1,113 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Re-derives the agency_token_capacity counters from identity.agency_token_uid, correcting any drift
+// (e.g. identities changed outside IdentityService) and creating counters for tokens that have none.
+// Identities are counted with a single grouped, non-locking read so signups are not blocked, and the
+// scheduled run happens on one node at a time.
+@Slf4j
+@Service
+public class AgencyTokenCapacityReconciliationService {
+
+    private static final String LOCK_NAME = "agency-token-capacity-reconciliation";
+    private static final Duration LOCK_AT_MOST = Duration.ofMinutes(30);
+
+    private static final String SELECT_COUNTERS = """
+            SELECT agency_token_uid, spaces_used FROM agency_token_capacity""";
+
+    private static final String COUNT_SPACES_USED = """
+            SELECT agency_token_uid, COUNT(*) AS spaces_used FROM identity
+            WHERE agency_token_uid IS NOT NULL
+            GROUP BY agency_token_uid""";
+
+    // Only applied if the counter still holds the value read, otherwise it is left to the next run
+    private static final String CORRECT_COUNTER = """
+            UPDATE agency_token_capacity SET spaces_used = ?
+            WHERE agency_token_uid = ? AND spaces_used = ?""";
+
+    private static final String CREATE_COUNTER = """
+            INSERT IGNORE INTO agency_token_capacity (agency_token_uid, spaces_used) VALUES (?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLock schedulerLock;
+    private final boolean enabled;
+    private final Duration lockAtLeast;
+    private final Counter correctedCounters;
+    private final Counter createdCounters;
+    private final Timer duration;
+
+    public AgencyTokenCapacityReconciliationService(JdbcTemplate jdbcTemplate, SchedulerLock schedulerLock,
+                                                    MeterRegistry meterRegistry,
+                                                    @Value("${agencyTokenCapacity.reconciliation.enabled}") boolean enabled,
+                                                    @Value("${agencyTokenCapacity.reconciliation.fixedDelayMillis}") long fixedDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLock = schedulerLock;
+        this.enabled = enabled;
+        this.lockAtLeast = Duration.ofMillis(fixedDelayMillis * 9 / 10);
+        this.correctedCounters = meterRegistry.counter("agency_token.capacity.reconciliation.corrected");
+        this.createdCounters = meterRegistry.counter("agency_token.capacity.reconciliation.created");
+        this.duration = meterRegistry.timer("agency_token.capacity.reconciliation.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${agencyTokenCapacity.reconciliation.fixedDelayMillis}",
+            initialDelayString = "${agencyTokenCapacity.reconciliation.initialDelayMillis}")
+    public void scheduledReconciliation() {
+        if (enabled) {
+            try {
+                if (!schedulerLock.runExclusively(LOCK_NAME, LOCK_AT_MOST, lockAtLeast, this::reconcile)) {
+                    log.debug("AgencyTokenCapacityReconciliationService: reconciled by another node, skipping");
+                }
+            } catch (RuntimeException e) {
+                log.error("AgencyTokenCapacityReconciliationService.scheduledReconciliation: reconciliation failed: {}",
+                        e.getMessage());
+            }
+        }
+    }
+
+    public int reconcile() {
+        return duration.record(() -> {
+            // Counters are read before identities, so a reservation or release committed in between changes
+            // the counter from the value read and its correction is skipped instead of undoing it
+            Map<String, Long> counters = readSpacesUsed(SELECT_COUNTERS);
+            Map<String, Long> spacesUsed = readSpacesUsed(COUNT_SPACES_USED);
+            int corrected = 0;
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                long actual = spacesUsed.getOrDefault(counter.getKey(), 0L);
+                if (actual != counter.getValue()) {
+                    corrected += jdbcTemplate.update(CORRECT_COUNTER, actual, counter.getKey(), counter.getValue());
+                }
+            }
+            int created = 0;
+            for (Map.Entry<String, Long> used : spacesUsed.entrySet()) {
+                if (!counters.containsKey(used.getKey())) {
+                    created += jdbcTemplate.update(CREATE_COUNTER, used.getKey(), used.getValue());
+                }
+            }
+            correctedCounters.increment(corrected);
+            createdCounters.increment(created);
+            log.info("AgencyTokenCapacityReconciliationService: {} agency token counters corrected, {} created",
+                    corrected, created);
+            return corrected + created;
+        });
+    }
+
+    private Map<String, Long> readSpacesUsed(String sql) {
+        Map<String, Long> spacesUsed = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                spacesUsed.put(rs.getString("agency_token_uid"), rs.getLong("spaces_used")));
+        return spacesUsed;
+    }
+}
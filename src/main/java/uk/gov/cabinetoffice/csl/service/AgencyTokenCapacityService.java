@@ -4,9 +4,13 @@ import org.springframework.transaction.annotation.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.repository.AgencyTokenCapacityRepository;
 import uk.gov.cabinetoffice.csl.repository.IdentityRepository;
 
+import java.util.*;
+
 @Slf4j
 @AllArgsConstructor
 @Service
@@ -14,9 +18,10 @@ import uk.gov.cabinetoffice.csl.repository.IdentityRepository;
 public class AgencyTokenCapacityService {
 
     private IdentityRepository identityRepository;
+    private AgencyTokenCapacityRepository agencyTokenCapacityRepository;
 
     public boolean hasSpaceAvailable(AgencyToken agencyToken) {
-        Long spacesUsed = identityRepository.countByAgencyTokenUid(agencyToken.getUid());
+        Long spacesUsed = getSpacesUsed(agencyToken.getUid());
 
         log.debug("Agency token uid={}, capacity={}, spaces used={}", agencyToken.getUid(), agencyToken.getCapacity(), spacesUsed);
 
@@ -24,14 +29,74 @@ public class AgencyTokenCapacityService {
     }
 
     public AgencyToken getSpacesUsedByAgencyToken(String uid) {
-        return new AgencyToken(identityRepository.countByAgencyTokenUid(uid));
+        return new AgencyToken(getSpacesUsed(uid));
     }
 
     public Long getCountOfAgencyByUid(String uid) {
-        return identityRepository.countByAgencyTokenUid(uid);
+        return getSpacesUsed(uid);
+    }
+
+    // Answers from the counters, with one grouped count over the identity table for tokens without a counter
+    public Map<String, Long> getSpacesUsedByAgencyTokens(Collection<String> uids) {
+        Map<String, Long> spacesUsed = new LinkedHashMap<>();
+        uids.forEach(uid -> spacesUsed.put(uid, 0L));
+        Set<String> uncounted = new HashSet<>(spacesUsed.keySet());
+        for (AgencyTokenCapacity agencyTokenCapacity : agencyTokenCapacityRepository.findAllById(spacesUsed.keySet())) {
+            spacesUsed.put(agencyTokenCapacity.getAgencyTokenUid(), agencyTokenCapacity.getSpacesUsed());
+            uncounted.remove(agencyTokenCapacity.getAgencyTokenUid());
+        }
+        if (!uncounted.isEmpty()) {
+            identityRepository.countByAgencyTokenUids(uncounted)
+                    .forEach(count -> spacesUsed.put(count.getAgencyTokenUid(), count.getSpacesUsed()));
+        }
+        return spacesUsed;
+    }
+
+    // Claims a space in the calling transaction, so the space is given back if that transaction rolls back.
+    // hasSpaceAvailable is only advisory, a space has to be reserved before an identity is assigned to the token
+    public boolean reserveSpace(AgencyToken agencyToken) {
+        String uid = agencyToken.getUid();
+        long capacity = agencyToken.getCapacity();
+        if (agencyTokenCapacityRepository.reserveSpace(uid, capacity) == 1) {
+            return true;
+        }
+        // The counter may be missing, or have just been created by a concurrent first reservation
+        agencyTokenCapacityRepository.insertIfAbsent(uid);
+        if (agencyTokenCapacityRepository.reserveSpace(uid, capacity) == 1) {
+            return true;
+        }
+        log.info("Agency token uid={} has no spaces available, capacity={}", uid, capacity);
+        return false;
+    }
+
+    public void releaseSpace(String agencyTokenUid) {
+        agencyTokenCapacityRepository.addSpacesUsed(agencyTokenUid, -1);
+    }
+
+    // Must be called in the transaction that moves an identity from previousAgencyTokenUid to agencyTokenUid,
+    // before the identity is changed, so that a counter created here is seeded from the identity table
+    public void updateSpacesUsed(String previousAgencyTokenUid, String agencyTokenUid) {
+        if (Objects.equals(previousAgencyTokenUid, agencyTokenUid)) {
+            return;
+        }
+        if (previousAgencyTokenUid != null) {
+            releaseSpace(previousAgencyTokenUid);
+        }
+        if (agencyTokenUid != null && agencyTokenCapacityRepository.addSpacesUsed(agencyTokenUid, 1) == 0) {
+            agencyTokenCapacityRepository.insertIfAbsent(agencyTokenUid);
+            agencyTokenCapacityRepository.addSpacesUsed(agencyTokenUid, 1);
+        }
     }
 
     public void deleteAgencyToken(String agencyTokenUid) {
         identityRepository.removeAgencyToken(agencyTokenUid);
+        agencyTokenCapacityRepository.removeAgencyToken(agencyTokenUid);
+    }
+
+    // Tokens without a counter yet (until their first assignment or the next reconciliation) are counted
+    // from the identity table
+    private Long getSpacesUsed(String uid) {
+        return agencyTokenCapacityRepository.findSpacesUsed(uid)
+                .orElseGet(() -> identityRepository.countByAgencyTokenUid(uid));
     }
 }
@@ -0,0 +1,185 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+import uk.gov.cabinetoffice.csl.service.client.csrs.ICivilServantRegistryClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+// The agency tokens assigned to organisations, indexed by uid, by domain and by domain and organisation code.
+// They are synced from the cached organisations, whose agency tokens are already applied to descendants, so
+// a sync only reads CSRS when the organisations cache is empty. Tokens that have not changed since the last
+// sync keep their instances and an unchanged list keeps the whole catalogue. Until a sync has succeeded, or
+// once the organisations it was built from were fetched from CSRS more than maximumAgeMillis ago (a cached
+// list may be hours old, or a snapshot served while CSRS is down), the catalogue is not used.
+@Slf4j
+@Service
+public class AgencyTokenCatalogue {
+
+    private final ICivilServantRegistryClient civilServantRegistryClient;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration maximumAge;
+    private volatile Catalogue catalogue;
+
+    public AgencyTokenCatalogue(ICivilServantRegistryClient civilServantRegistryClient, MeterRegistry meterRegistry,
+                                Clock clock,
+                                @Value("${civilServantRegistry.agencyTokenCatalogue.enabled}") boolean enabled,
+                                @Value("${civilServantRegistry.agencyTokenCatalogue.maximumAgeMillis}") long maximumAgeMillis) {
+        this.civilServantRegistryClient = civilServantRegistryClient;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.maximumAge = Duration.ofMillis(maximumAgeMillis);
+        meterRegistry.gauge("csrs.agency_token.catalogue.age", this, AgencyTokenCatalogue::getAgeSeconds);
+        meterRegistry.gauge("csrs.agency_token.catalogue.size", this,
+                c -> c.catalogue != null ? c.catalogue.tokensByUid().size() : 0);
+    }
+
+    @Scheduled(fixedDelayString = "${civilServantRegistry.agencyTokenCatalogue.fixedDelayMillis}",
+            initialDelayString = "${civilServantRegistry.agencyTokenCatalogue.initialDelayMillis}")
+    public void scheduledSync() {
+        if (enabled) {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                log.error("AgencyTokenCatalogue.scheduledSync: sync failed, keeping the current catalogue: {}",
+                        e.getMessage());
+            }
+        }
+    }
+
+    public void sync() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<OrganisationalUnit> organisationalUnits = civilServantRegistryClient.getAllOrganisations();
+        Instant fetchedAt = civilServantRegistryClient.getOrganisationsFetchedAt();
+        if (fetchedAt == null) {
+            log.warn("AgencyTokenCatalogue.sync: the organisations fetch time is unknown, treating them as expired");
+            fetchedAt = Instant.EPOCH;
+        }
+        Catalogue current = catalogue;
+        if (current != null && current.organisationalUnits() == organisationalUnits) {
+            catalogue = current.withFetchedAt(fetchedAt);
+        } else {
+            catalogue = build(organisationalUnits, current, fetchedAt);
+        }
+        sample.stop(meterRegistry.timer("csrs.agency_token.catalogue.sync"));
+    }
+
+    public void clear() {
+        catalogue = null;
+        log.info("AgencyTokenCatalogue: cleared");
+    }
+
+    // When false the lookups below answer as if there were no agency tokens, so callers have to ask CSRS
+    public boolean isAvailable() {
+        Catalogue current = catalogue;
+        return current != null && Duration.between(current.fetchedAt(), clock.instant()).compareTo(maximumAge) <= 0;
+    }
+
+    public boolean isDomainInAnAgencyToken(String domain) {
+        return getCatalogue().tokensByDomain().containsKey(normalise(domain));
+    }
+
+    public boolean isDomainInAnAgencyTokenWithOrg(String domain, String orgCode) {
+        return getCatalogue().tokensByDomainAndOrg().containsKey(domainAndOrg(domain, orgCode));
+    }
+
+    public Optional<AgencyToken> getAgencyToken(String domain, String token, String orgCode) {
+        return Optional.ofNullable(getCatalogue().tokensByDomainAndOrg().get(domainAndOrg(domain, orgCode)))
+                .filter(agencyToken -> agencyToken.getToken() != null && agencyToken.getToken().equals(token));
+    }
+
+    public boolean isAgencyTokenUidValidForDomain(String agencyTokenUid, String domain) {
+        AgencyToken agencyToken = getCatalogue().tokensByUid().get(agencyTokenUid);
+        return agencyToken != null && agencyToken.isDomainAssignedToAgencyToken(domain);
+    }
+
+    private Catalogue getCatalogue() {
+        Catalogue current = catalogue;
+        return current != null ? current : Catalogue.EMPTY;
+    }
+
+    private double getAgeSeconds() {
+        Catalogue current = catalogue;
+        return current != null ? Duration.between(current.fetchedAt(), clock.instant()).toSeconds() : -1;
+    }
+
+    private Catalogue build(List<OrganisationalUnit> organisationalUnits, Catalogue previous, Instant fetchedAt) {
+        Map<String, AgencyToken> previousTokens = previous != null ? previous.tokensByUid() : Map.of();
+        Map<String, AgencyToken> tokensByUid = new HashMap<>();
+        Map<String, List<AgencyToken>> tokensByDomain = new HashMap<>();
+        Map<String, AgencyToken> tokensByDomainAndOrg = new HashMap<>();
+        int added = 0;
+        int updated = 0;
+        for (OrganisationalUnit organisationalUnit : organisationalUnits) {
+            AgencyToken agencyToken = organisationalUnit.getAgencyToken();
+            if (agencyToken == null || agencyToken.getUid() == null) {
+                continue;
+            }
+            AgencyToken catalogued = tokensByUid.get(agencyToken.getUid());
+            if (catalogued == null) {
+                AgencyToken previousToken = previousTokens.get(agencyToken.getUid());
+                if (previousToken == null) {
+                    added++;
+                    catalogued = agencyToken;
+                } else if (!previousToken.equals(agencyToken)) {
+                    updated++;
+                    catalogued = agencyToken;
+                } else {
+                    catalogued = previousToken;
+                }
+                tokensByUid.put(catalogued.getUid(), catalogued);
+                for (Domain domain : catalogued.getAgencyDomains()) {
+                    List<AgencyToken> domainTokens = tokensByDomain.computeIfAbsent(normalise(domain.getDomain()),
+                            d -> new ArrayList<>());
+                    if (!domainTokens.contains(catalogued)) {
+                        domainTokens.add(catalogued);
+                    }
+                }
+            }
+            for (Domain domain : catalogued.getAgencyDomains()) {
+                tokensByDomainAndOrg.put(domainAndOrg(domain.getDomain(), organisationalUnit.getCode()), catalogued);
+            }
+        }
+        int removed = (int) previousTokens.keySet().stream().filter(uid -> !tokensByUid.containsKey(uid)).count();
+        meterRegistry.counter("csrs.agency_token.catalogue.changes", "change", "added").increment(added);
+        meterRegistry.counter("csrs.agency_token.catalogue.changes", "change", "updated").increment(updated);
+        meterRegistry.counter("csrs.agency_token.catalogue.changes", "change", "removed").increment(removed);
+        log.info("AgencyTokenCatalogue: synced {} agency tokens ({} added, {} updated, {} removed)",
+                tokensByUid.size(), added, updated, removed);
+        tokensByDomain.replaceAll((domain, tokens) -> List.copyOf(tokens));
+        return new Catalogue(organisationalUnits, Map.copyOf(tokensByUid), Map.copyOf(tokensByDomain),
+                Map.copyOf(tokensByDomainAndOrg), fetchedAt);
+    }
+
+    private static String domainAndOrg(String domain, String orgCode) {
+        return normalise(domain) + " " + orgCode;
+    }
+
+    private static String normalise(String domain) {
+        return domain == null ? "" : domain.toLowerCase(Locale.ROOT);
+    }
+
+    private record Catalogue(List<OrganisationalUnit> organisationalUnits, Map<String, AgencyToken> tokensByUid,
+                             Map<String, List<AgencyToken>> tokensByDomain,
+                             Map<String, AgencyToken> tokensByDomainAndOrg, Instant fetchedAt) {
+
+        static final Catalogue EMPTY = new Catalogue(List.of(), Map.of(), Map.of(), Map.of(), Instant.EPOCH);
+
+        Catalogue withFetchedAt(Instant fetchedAt) {
+            return new Catalogue(organisationalUnits, tokensByUid, tokensByDomain, tokensByDomainAndOrg, fetchedAt);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+// Reloads the organisations and allowlist domains caches well within their TTL. The new list replaces the
+// cached one in a single write, so requests keep reading the previous list until the reload has finished.
+// A failed reload leaves the cached list in place until the next attempt or its TTL.
+// The caches are shared, so each reload runs on one node and the lock is held for most of the interval
+// to make the other nodes skip their next scheduled run.
+@Slf4j
+@Service
+public class CsrsCacheRefreshService {
+
+    private static final String LOCK_NAME = "csrs-cache-refresh";
+    private static final Duration LOCK_AT_MOST = Duration.ofMinutes(10);
+
+    private final CsrsService csrsService;
+    private final SchedulerLock schedulerLock;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration lockAtLeast;
+
+    public CsrsCacheRefreshService(CsrsService csrsService, SchedulerLock schedulerLock, MeterRegistry meterRegistry,
+                                   @Value("${civilServantRegistry.cacheRefresh.enabled}") boolean enabled,
+                                   @Value("${civilServantRegistry.cacheRefresh.fixedDelayMillis}") long fixedDelayMillis) {
+        this.csrsService = csrsService;
+        this.schedulerLock = schedulerLock;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.lockAtLeast = Duration.ofMillis(fixedDelayMillis * 9 / 10);
+    }
+
+    @Scheduled(fixedDelayString = "${civilServantRegistry.cacheRefresh.fixedDelayMillis}",
+            initialDelayString = "${civilServantRegistry.cacheRefresh.initialDelayMillis}")
+    public void scheduledRefresh() {
+        if (enabled && !schedulerLock.runExclusively(LOCK_NAME, LOCK_AT_MOST, lockAtLeast, this::refreshCaches)) {
+            log.debug("CsrsCacheRefreshService: caches refreshed by another node, skipping");
+        }
+    }
+
+    public void refreshCaches() {
+        refresh("organisations", csrsService::refreshOrganisationsCache);
+        refresh("allowDomains", csrsService::refreshAllowListDomainCache);
+    }
+
+    private void refresh(String cacheName, Runnable refresh) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            refresh.run();
+            sample.stop(meterRegistry.timer("csrs.cache.refresh", "cache", cacheName, "outcome", "success"));
+            log.info("CsrsCacheRefreshService: {} cache refreshed", cacheName);
+        } catch (RuntimeException e) {
+            sample.stop(meterRegistry.timer("csrs.cache.refresh", "cache", cacheName, "outcome", "failure"));
+            log.error("CsrsCacheRefreshService: {} cache refresh failed, keeping the cached entry: {}", cacheName,
+                    e.getMessage());
+        }
+    }
+}
@@ -10,15 +10,18 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 
-import static java.util.stream.Collectors.toList;
-
 @Service
 @Slf4j
 public class CsrsService {
     private ICivilServantRegistryClient civilServantRegistryClient;
+    private AgencyTokenCatalogue agencyTokenCatalogue;
+    // Rebuilt whenever the organisations cache hands out a different list, i.e. after a reload
+    private volatile OrganisationalUnitDomainIndex organisationalUnitDomainIndex;
 
-    public CsrsService(ICivilServantRegistryClient civilServantRegistryClient){
+    public CsrsService(ICivilServantRegistryClient civilServantRegistryClient,
+                       AgencyTokenCatalogue agencyTokenCatalogue){
         this.civilServantRegistryClient = civilServantRegistryClient;
+        this.agencyTokenCatalogue = agencyTokenCatalogue;
     }
 
     public boolean isDomainAllowlisted(String domain) {
@@ -30,21 +33,34 @@ public class CsrsService {
     }
 
     public List<OrganisationalUnit> getOrganisationalUnitsByDomain(String domain) {
-        return this.getAllOrganisationalUnits()
-                .stream()
-                .filter(o -> o.doesDomainExist(domain))
-                .collect(toList());
+        return getOrganisationalUnitDomainIndex().getByDomain(domain);
     }
 
     public boolean isDomainValid(String domain) {
-        return !this.getOrganisationalUnitsByDomain(domain).isEmpty();
+        return getOrganisationalUnitDomainIndex().containsDomain(domain);
+    }
+
+    private OrganisationalUnitDomainIndex getOrganisationalUnitDomainIndex() {
+        List<OrganisationalUnit> organisationalUnits = this.getAllOrganisationalUnits();
+        OrganisationalUnitDomainIndex index = organisationalUnitDomainIndex;
+        if (index == null || index.getOrganisationalUnits() != organisationalUnits) {
+            index = new OrganisationalUnitDomainIndex(organisationalUnits);
+            organisationalUnitDomainIndex = index;
+        }
+        return index;
     }
 
     public boolean isDomainInAnAgencyToken(String domain){
+        if (agencyTokenCatalogue.isAvailable()) {
+            return agencyTokenCatalogue.isDomainInAnAgencyToken(domain);
+        }
         return civilServantRegistryClient.isDomainInAnAgencyToken(domain);
     }
 
     public boolean isDomainInAnAgencyTokenWithOrg(String domain, String orgCode) {
+        if (agencyTokenCatalogue.isAvailable()) {
+            return agencyTokenCatalogue.isDomainInAnAgencyTokenWithOrg(domain, orgCode);
+        }
         return civilServantRegistryClient.isDomainInAnAgencyTokenWithOrg(domain, orgCode);
     }
 
@@ -56,15 +72,34 @@ public class CsrsService {
         civilServantRegistryClient.evictOrganisationsCache();
     }
 
+    public void evictAgencyTokenCaches(){
+        civilServantRegistryClient.evictAgencyTokenCaches();
+        agencyTokenCatalogue.clear();
+    }
+
+    public void refreshAllowListDomainCache(){
+        civilServantRegistryClient.refreshAllowListDomainCache();
+    }
+
+    public void refreshOrganisationsCache(){
+        civilServantRegistryClient.refreshOrganisationsCache();
+    }
+
     public void removeOrganisationalUnitFromCivilServant(String uid){
         civilServantRegistryClient.removeOrganisationalUnitFromCivilServant(uid);
     }
 
     public Optional<AgencyToken> getAgencyToken(String domain, String token, String organisation) {
+        if (agencyTokenCatalogue.isAvailable()) {
+            return agencyTokenCatalogue.getAgencyToken(domain, token, organisation);
+        }
         return civilServantRegistryClient.getAgencyToken(domain, token, organisation);
     }
 
     public boolean isAgencyTokenUidValidForDomain(String agencyTokenUid, String domain) {
+        if (agencyTokenCatalogue.isAvailable()) {
+            return agencyTokenCatalogue.isAgencyTokenUidValidForDomain(agencyTokenUid, domain);
+        }
         return civilServantRegistryClient.isAgencyTokenUidValidForDomain(agencyTokenUid, domain);
     }
 }
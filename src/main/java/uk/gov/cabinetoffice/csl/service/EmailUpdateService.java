@@ -21,6 +21,7 @@ import java.util.Map;
 import static java.time.LocalDateTime.now;
 import static java.time.temporal.ChronoUnit.MILLIS;
 import static uk.gov.cabinetoffice.csl.domain.EmailUpdateStatus.*;
+import static uk.gov.cabinetoffice.csl.util.TransactionUtils.runAfterCommit;
 
 @Slf4j
 @Service
@@ -139,7 +140,8 @@ public class EmailUpdateService {
 
         log.debug("Updating email address for: oldEmail = {}, newEmail = {}", existingEmail, newEmail);
         identityService.updateEmailAddress(existingIdentity, newEmail, agencyToken);
-        csrsService.removeOrganisationalUnitFromCivilServant(emailUpdate.getIdentity().getUid());
+        String identityUid = emailUpdate.getIdentity().getUid();
+        runAfterCommit(() -> csrsService.removeOrganisationalUnitFromCivilServant(identityUid));
         log.debug("Updated email address for: oldEmail = {}, newEmail = {}", existingEmail, newEmail);
 
         emailUpdate.setUpdatedAt(now(clock));
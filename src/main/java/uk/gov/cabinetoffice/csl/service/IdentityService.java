@@ -26,6 +26,7 @@ import static java.time.LocalDateTime.now;
 import static java.util.Collections.singletonList;
 import static java.util.UUID.randomUUID;
 import static java.util.stream.Collectors.toList;
+import static uk.gov.cabinetoffice.csl.util.TransactionUtils.runAfterCommit;
 
 @Slf4j
 @AllArgsConstructor
@@ -82,6 +83,8 @@ public class IdentityService {
     @Transactional(noRollbackFor = {UnableToAllocateAgencyTokenException.class, ResourceNotFoundException.class})
     public void createIdentityFromInviteCode(String code, String password, AgencyToken agencyToken) {
         Invite invite = inviteService.getInviteForCode(code);
+        // Encoded before any space is reserved, as the reservation holds the agency token's counter row until commit
+        String encodedPassword = passwordEncoder.encode(password);
         String email = invite.getForEmail();
         final String domain = utils.getDomainFromEmailAddress(email);
         Set<Role> newRoles = new HashSet<>(invite.getForRoles());
@@ -94,7 +97,7 @@ public class IdentityService {
                 AgencyToken agencyTokenFromCSRS = agencyTokenOptional.get();
                 agencyTokenUid = agencyTokenFromCSRS.getUid();
                 log.info("Identity request has agency uid = {}", agencyTokenUid);
-                if (!agencyTokenCapacityService.hasSpaceAvailable(agencyTokenFromCSRS)) {
+                if (!agencyTokenCapacityService.reserveSpace(agencyTokenFromCSRS)) {
                     log.info("Agency token uid {} has no spaces available. Identity is not created", agencyTokenUid);
                     throw new UnableToAllocateAgencyTokenException("Agency token uid " + agencyTokenFromCSRS.getUid()
                             + " has no spaces available. Identity is not created");
@@ -109,7 +112,7 @@ public class IdentityService {
             throw new ResourceNotFoundException("Invited request neither agency, nor allowListed, nor invited via IDM for email: "
                     + email);
         }
-        Identity identity = new Identity(randomUUID().toString(), email, passwordEncoder.encode(password),
+        Identity identity = new Identity(randomUUID().toString(), email, encodedPassword,
                 true, false, newRoles, now(clock), false, agencyTokenUid, 0);
         identityRepository.save(identity);
         log.info("New identity for email {} is successfully created.", email);
@@ -151,9 +154,11 @@ public class IdentityService {
     public void updateEmailAddress(Identity identity, String email, AgencyToken newAgencyToken) {
         if (newAgencyToken != null && newAgencyToken.getUid() != null) {
             log.debug("Updating agency token for user: oldAgencyToken = {}, newAgencyToken = {}", identity.getAgencyTokenUid(), newAgencyToken.getUid());
+            agencyTokenCapacityService.updateSpacesUsed(identity.getAgencyTokenUid(), newAgencyToken.getUid());
             identity.setAgencyTokenUid(newAgencyToken.getUid());
         } else {
             log.debug("Setting existing agency token UID to null");
+            agencyTokenCapacityService.updateSpacesUsed(identity.getAgencyTokenUid(), null);
             identity.setAgencyTokenUid(null);
         }
         identity.setEmail(email);
@@ -168,6 +173,7 @@ public class IdentityService {
         identity.setActive(true);
         identity.setDeletionNotificationSent(false);
         if (agencyToken != null && agencyToken.getUid() != null) {
+            agencyTokenCapacityService.updateSpacesUsed(identity.getAgencyTokenUid(), agencyToken.getUid());
             identity.setAgencyTokenUid(agencyToken.getUid());
         }
         identityRepository.save(identity);
@@ -195,19 +201,26 @@ public class IdentityService {
     }
 
     public Identity assignAgencyToken(String email, AgencyToken agencyToken) {
-        if (!agencyTokenCapacityService.hasSpaceAvailable(agencyToken)) {
-            log.info("Agency token uid {} has no spaces available. Unable to assign agency token.", agencyToken.getUid());
-            throw new NotEnoughSpaceAvailableException("Agency token uid " + agencyToken.getUid()
-                    + " has no spaces available. Unable to assign agency token.");
-        }
         Identity identity = getIdentityForEmail(email);
+        String previousAgencyTokenUid = identity.getAgencyTokenUid();
+        if (!Objects.equals(agencyToken.getUid(), previousAgencyTokenUid)) {
+            if (!agencyTokenCapacityService.reserveSpace(agencyToken)) {
+                log.info("Agency token uid {} has no spaces available. Unable to assign agency token.", agencyToken.getUid());
+                throw new NotEnoughSpaceAvailableException("Agency token uid " + agencyToken.getUid()
+                        + " has no spaces available. Unable to assign agency token.");
+            }
+            if (previousAgencyTokenUid != null) {
+                agencyTokenCapacityService.releaseSpace(previousAgencyTokenUid);
+            }
+        }
         identity.setActive(true);
         identity.setLocked(false);
         identity.setFailedLoginAttempts(0);
         identity.setLastLoggedIn(now(clock));
         identity.setAgencyTokenUid(agencyToken.getUid());
         identityRepository.save(identity);
-        csrsService.removeOrganisationalUnitFromCivilServant(identity.getUid());
+        String uid = identity.getUid();
+        runAfterCommit(() -> csrsService.removeOrganisationalUnitFromCivilServant(uid));
         return identity;
     }
 }
@@ -0,0 +1,59 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+
+import java.util.*;
+
+// Organisational units by lowercase domain, built once for each loaded list of organisations.
+// Units are kept in the order of the loaded list and listed once per domain.
+public final class OrganisationalUnitDomainIndex {
+
+    private final List<OrganisationalUnit> organisationalUnits;
+    private final Map<String, List<OrganisationalUnit>> byDomain;
+
+    public OrganisationalUnitDomainIndex(List<OrganisationalUnit> organisationalUnits) {
+        this.organisationalUnits = organisationalUnits;
+        Map<String, List<OrganisationalUnit>> all = new HashMap<>();
+        for (OrganisationalUnit organisationalUnit : organisationalUnits) {
+            Set<String> domains = new HashSet<>();
+            addDomains(organisationalUnit.getDomains(), domains);
+            if (organisationalUnit.getAgencyToken() != null) {
+                addDomains(organisationalUnit.getAgencyToken().getAgencyDomains()
+                        .stream().map(Domain::getDomain).toList(), domains);
+            }
+            domains.forEach(domain -> all.computeIfAbsent(domain, d -> new ArrayList<>()).add(organisationalUnit));
+        }
+        this.byDomain = freeze(all);
+    }
+
+    public List<OrganisationalUnit> getOrganisationalUnits() {
+        return organisationalUnits;
+    }
+
+    public List<OrganisationalUnit> getByDomain(String domain) {
+        return byDomain.getOrDefault(normalise(domain), List.of());
+    }
+
+    public boolean containsDomain(String domain) {
+        return byDomain.containsKey(normalise(domain));
+    }
+
+    private static void addDomains(List<String> domains, Set<String> allDomains) {
+        for (String domain : domains) {
+            if (domain != null) {
+                allDomains.add(normalise(domain));
+            }
+        }
+    }
+
+    private static Map<String, List<OrganisationalUnit>> freeze(Map<String, List<OrganisationalUnit>> index) {
+        Map<String, List<OrganisationalUnit>> frozen = new HashMap<>(index.size() * 4 / 3 + 1);
+        index.forEach((domain, units) -> frozen.put(domain, List.copyOf(units)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    private static String normalise(String domain) {
+        return domain == null ? "" : domain.toLowerCase(Locale.ROOT);
+    }
+}
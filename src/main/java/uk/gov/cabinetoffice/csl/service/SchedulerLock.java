@@ -0,0 +1,80 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+
+// A named lock in the scheduler_lock table, so that a scheduled job runs on one node of the cluster at a time.
+// A lock is held for at most lockAtMost, in case the node holding it dies, and for at least lockAtLeast, so
+// that nodes whose schedules fire a little later skip the run that has just finished.
+@Slf4j
+@Component
+public class SchedulerLock {
+
+    private static final String TAKE_EXPIRED_LOCK = """
+            UPDATE scheduler_lock SET locked_at = ?, locked_until = ?, locked_by = ?
+            WHERE name = ? AND locked_until <= ?""";
+
+    private static final String INSERT_LOCK = """
+            INSERT IGNORE INTO scheduler_lock (name, locked_at, locked_until, locked_by) VALUES (?, ?, ?, ?)""";
+
+    private static final String RELEASE_LOCK = """
+            UPDATE scheduler_lock SET locked_until = ? WHERE name = ? AND locked_by = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public SchedulerLock(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    // Returns false without running the task if another node holds the lock or the lock cannot be read
+    public boolean runExclusively(String name, Duration lockAtMost, Duration lockAtLeast, Runnable task) {
+        // Whole seconds, as stored by a MySQL datetime column
+        Timestamp lockedAt = Timestamp.from(clock.instant().truncatedTo(SECONDS));
+        if (!lock(name, lockedAt, lockAtMost)) {
+            log.debug("SchedulerLock.runExclusively: {} is locked by another node, skipping", name);
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } finally {
+            unlock(name, lockedAt, lockAtLeast);
+        }
+    }
+
+    private boolean lock(String name, Timestamp lockedAt, Duration lockAtMost) {
+        Timestamp lockedUntil = Timestamp.from(lockedAt.toInstant().plus(lockAtMost));
+        try {
+            return jdbcTemplate.update(TAKE_EXPIRED_LOCK, lockedAt, lockedUntil, nodeId, name, lockedAt) == 1
+                    || jdbcTemplate.update(INSERT_LOCK, name, lockedAt, lockedUntil, nodeId) == 1;
+        } catch (DataAccessException e) {
+            log.warn("SchedulerLock.lock: unable to take {} lock: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void unlock(String name, Timestamp lockedAt, Duration lockAtLeast) {
+        Instant earliestUnlock = lockedAt.toInstant().plus(lockAtLeast);
+        Instant now = clock.instant();
+        Timestamp lockedUntil = Timestamp.from(earliestUnlock.isAfter(now) ? earliestUnlock : now);
+        try {
+            jdbcTemplate.update(RELEASE_LOCK, lockedUntil, name, nodeId);
+        } catch (DataAccessException e) {
+            log.warn("SchedulerLock.unlock: unable to release {} lock, it expires by itself: {}", name,
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
+import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.dto.IdentityDetails;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.security.oauth2.jose.jws.MacAlgorithm.HS256;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+
+// The claims that only depend on the registered client are built once per client instance
+// and the authorities claim once per distinct set of granted authorities.
+@Slf4j
+@Component
+public class AccessTokenCustomizer implements OAuth2TokenCustomizer<JwtEncodingContext> {
+
+    public static final String ACCESS_TOKEN_SIGNATURE_ALGORITHM = "settings.token.access-token-signature-algorithm";
+
+    private static final int MAXIMUM_AUTHORITY_SETS = 1000;
+    private static final Set<String> CLIENT_AUTHORITIES = Set.of("CLIENT");
+
+    private final SigningKeyService signingKeyService;
+    private final Map<String, ClientClaims> clientClaimsById = new ConcurrentHashMap<>();
+    private final Map<Collection<? extends GrantedAuthority>, Set<String>> authoritiesByGrantedAuthorities =
+            new ConcurrentHashMap<>();
+
+    public AccessTokenCustomizer(SigningKeyService signingKeyService) {
+        this.signingKeyService = signingKeyService;
+    }
+
+    @Override
+    public void customize(JwtEncodingContext context) {
+        if (!ACCESS_TOKEN.equals(context.getTokenType())) {
+            return;
+        }
+        ClientClaims clientClaims = getClientClaims(context.getRegisteredClient());
+        setSignatureAlgorithm(context, clientClaims);
+        context.getJwsHeader().type("JWT");
+        context.getClaims().claim("client_id", clientClaims.clientId());
+        context.getClaims().claim(JwtClaimNames.JTI, UUID.randomUUID().toString());
+        context.getClaims().claim("scopes", clientClaims.scopes());
+        Authentication principal = context.getPrincipal();
+        Set<String> authorities = Set.of();
+        if (principal instanceof UsernamePasswordAuthenticationToken) {
+            context.getClaims().claim("user_name", principal.getName());
+            authorities = getAuthorities(principal.getAuthorities());
+            if (principal.getPrincipal() instanceof IdentityDetails identityDetails) {
+                context.getClaims().claim("email", identityDetails.getIdentity().getEmail());
+            }
+        } else if (principal instanceof OAuth2ClientAuthenticationToken) {
+            context.getClaims().claim("user_name", principal.getName());
+            authorities = CLIENT_AUTHORITIES;
+        }
+        context.getClaims().claim("authorities", authorities);
+        //Audience is set to null to make the access token backward compatible with all the existing backend services
+        context.getClaims().audience(List.of());
+    }
+
+    private ClientClaims getClientClaims(RegisteredClient client) {
+        ClientClaims clientClaims = clientClaimsById.get(client.getId());
+        // The registered client repository hands out a new instance whenever the client is reloaded
+        if (clientClaims == null || clientClaims.registeredClient() != client) {
+            SignatureAlgorithm signatureAlgorithm = getSignatureAlgorithm(client);
+            clientClaims = new ClientClaims(client, client.getClientId(), Set.copyOf(client.getScopes()),
+                    signatureAlgorithm, signatureAlgorithm != null ? JWSAlgorithm.parse(signatureAlgorithm.getName()) : null);
+            clientClaimsById.put(client.getId(), clientClaims);
+        }
+        return clientClaims;
+    }
+
+    // Clients sign with HS256 unless their token settings name an asymmetric algorithm with an active key
+    private SignatureAlgorithm getSignatureAlgorithm(RegisteredClient client) {
+        String algorithm = client.getTokenSettings().getSetting(ACCESS_TOKEN_SIGNATURE_ALGORITHM);
+        if (algorithm == null || HS256.getName().equals(algorithm)) {
+            return null;
+        }
+        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.from(algorithm);
+        if (signatureAlgorithm == null) {
+            log.warn("Unsupported access token signature algorithm {} for client {}, using HS256", algorithm,
+                    client.getClientId());
+        }
+        return signatureAlgorithm;
+    }
+
+    private void setSignatureAlgorithm(JwtEncodingContext context, ClientClaims clientClaims) {
+        if (clientClaims.signatureAlgorithm() != null) {
+            String kid = signingKeyService.getSigningKeyId(clientClaims.jwsAlgorithm());
+            if (kid != null) {
+                context.getJwsHeader().algorithm(clientClaims.signatureAlgorithm()).keyId(kid);
+                return;
+            }
+            log.warn("No signing key available for algorithm {} of client {}, using HS256",
+                    clientClaims.signatureAlgorithm(), clientClaims.clientId());
+        }
+        context.getJwsHeader().algorithm(HS256);
+    }
+
+    private Set<String> getAuthorities(Collection<? extends GrantedAuthority> grantedAuthorities) {
+        Set<String> authorities = authoritiesByGrantedAuthorities.get(grantedAuthorities);
+        if (authorities == null) {
+            authorities = grantedAuthorities.stream().map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.toUnmodifiableSet());
+            if (authoritiesByGrantedAuthorities.size() >= MAXIMUM_AUTHORITY_SETS) {
+                authoritiesByGrantedAuthorities.clear();
+            }
+            authoritiesByGrantedAuthorities.put(List.copyOf(grantedAuthorities), authorities);
+        }
+        return authorities;
+    }
+
+    private record ClientClaims(RegisteredClient registeredClient, String clientId, Set<String> scopes,
+                                SignatureAlgorithm signatureAlgorithm, JWSAlgorithm jwsAlgorithm) {
+    }
+}
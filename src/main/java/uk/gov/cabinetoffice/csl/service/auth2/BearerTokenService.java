@@ -1,32 +1,18 @@
 package uk.gov.cabinetoffice.csl.service.auth2;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
-import uk.gov.cabinetoffice.csl.service.client.identity.IIdentityClient;
 
-import java.time.Clock;
-import java.time.LocalDateTime;
-
-import static java.time.LocalDateTime.now;
-import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @Service
-@Slf4j
 public class BearerTokenService implements IBearerTokenService {
 
-    private final Clock clock;
-    private final IIdentityClient identityClient;
+    private final ServiceTokenHolder serviceTokenHolder;
     private final IUserAuthService userAuthService;
 
-    @Value("${oauth2.refresh.serviceTokenCache.beforeSecondsToExpire}")
-    private long refreshServiceTokenCacheBeforeSecondsToExpire;
-
-    public BearerTokenService(Clock clock, IIdentityClient identityClient, IUserAuthService userAuthService) {
-        this.clock = clock;
-        this.identityClient = identityClient;
+    public BearerTokenService(ServiceTokenHolder serviceTokenHolder, IUserAuthService userAuthService) {
+        this.serviceTokenHolder = serviceTokenHolder;
         this.userAuthService = userAuthService;
     }
 
@@ -37,18 +23,7 @@ public class BearerTokenService implements IBearerTokenService {
             bearerToken = jwtPrincipal.getTokenValue();
         }
         if (isBlank(bearerToken)) {
-            OAuthToken serviceToken = identityClient.getServiceToken();
-            LocalDateTime tokenExpiry = serviceToken.getExpiryDateTime();
-            log.debug("serviceToken: expiryDateTime: {}", tokenExpiry);
-            long secondsRemainingToExpire = tokenExpiry != null ? SECONDS.between(now(clock), tokenExpiry) : 0;
-            log.debug("serviceToken: seconds remaining to service token expiry: {}", secondsRemainingToExpire);
-            log.debug("serviceToken: seconds remaining to refresh the service token cache: {}",
-                    (secondsRemainingToExpire - refreshServiceTokenCacheBeforeSecondsToExpire));
-            if (secondsRemainingToExpire <= refreshServiceTokenCacheBeforeSecondsToExpire) {
-                identityClient.evictServiceTokenFromCache();
-                serviceToken = identityClient.getServiceToken();
-            }
-            bearerToken = serviceToken.getAccessToken();
+            bearerToken = serviceTokenHolder.getAccessToken();
         }
         return bearerToken;
     }
@@ -0,0 +1,41 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Used only by client authentication at the token endpoints; user passwords keep the plain encoder.
+public class CachingClientSecretPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ClientSecretVerificationCache clientSecretVerificationCache;
+
+    public CachingClientSecretPasswordEncoder(PasswordEncoder delegate,
+                                              ClientSecretVerificationCache clientSecretVerificationCache) {
+        this.delegate = delegate;
+        this.clientSecretVerificationCache = clientSecretVerificationCache;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        if (clientSecretVerificationCache.isVerified(rawPassword, encodedPassword)) {
+            return true;
+        }
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        if (matches) {
+            clientSecretVerificationCache.putVerified(rawPassword, encodedPassword);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,86 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static uk.gov.cabinetoffice.csl.util.TokenHashUtils.getSha256Hash;
+
+// Verified JWTs are cached by token hash until they expire, so repeated calls with the same
+// bearer token skip parsing and signature verification. As with the undecorated decoder, revocation is
+// not checked, so a revoked JWT is accepted by resource-server requests until it expires.
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Clock clock;
+    private final Cache<String, Jwt> cache;
+    private final Timer decodeTimer;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maximumTtl, Clock clock,
+                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new JwtExpiry(maximumTtl))
+                .recordStats()
+                .build();
+        this.decodeTimer = meterRegistry.timer("oauth2.jwt.decode");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtDecoder");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = getSha256Hash(token);
+        Jwt jwt = cache.getIfPresent(key);
+        if (jwt != null && isUnexpired(jwt)) {
+            return jwt;
+        }
+        jwt = decodeTimer.record(() -> delegate.decode(token));
+        if (jwt != null && jwt.getExpiresAt() != null) {
+            cache.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    private boolean isUnexpired(Jwt jwt) {
+        return clock.instant().isBefore(jwt.getExpiresAt());
+    }
+
+    private class JwtExpiry implements Expiry<String, Jwt> {
+
+        private final Duration maximumTtl;
+
+        private JwtExpiry(Duration maximumTtl) {
+            this.maximumTtl = maximumTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Duration ttl = Duration.between(clock.instant(), jwt.getExpiresAt());
+            if (ttl.isNegative()) {
+                return 0;
+            }
+            return (ttl.compareTo(maximumTtl) < 0 ? ttl : maximumTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+// Registered clients rarely change, so parsed clients are held in memory by id and client_id.
+// Entries are reloaded after the TTL so instances that did not receive an eviction converge.
+@Slf4j
+public class CachingRegisteredClientRepository implements RegisteredClientRepository {
+
+    public static final String CACHE_NAME = "registeredClients";
+
+    private final RegisteredClientRepository delegate;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, CachedClient> clientsById = new ConcurrentHashMap<>();
+    private final Map<String, CachedClient> clientsByClientId = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final List<Runnable> evictionListeners = new CopyOnWriteArrayList<>();
+
+    public CachingRegisteredClientRepository(RegisteredClientRepository delegate, Duration ttl, Clock clock,
+                                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.hits = meterRegistry.counter("oauth2.registered_client.cache", "result", "hit");
+        this.misses = meterRegistry.counter("oauth2.registered_client.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("oauth2.registered_client.cache.size", List.of(), clientsById);
+    }
+
+    @Override
+    public void save(RegisteredClient registeredClient) {
+        Assert.notNull(registeredClient, "registeredClient cannot be null");
+        delegate.save(registeredClient);
+        evictAll();
+    }
+
+    @Override
+    public RegisteredClient findById(String id) {
+        return find(clientsById, id, delegate::findById);
+    }
+
+    @Override
+    public RegisteredClient findByClientId(String clientId) {
+        return find(clientsByClientId, clientId, delegate::findByClientId);
+    }
+
+    // Called whenever the cached clients are cleared, for caches derived from the client rows
+    public void addEvictionListener(Runnable evictionListener) {
+        evictionListeners.add(evictionListener);
+    }
+
+    public void evictAll() {
+        clientsById.clear();
+        clientsByClientId.clear();
+        evictionListeners.forEach(Runnable::run);
+        log.info("CachingRegisteredClientRepository: registered client cache cleared");
+    }
+
+    private RegisteredClient find(Map<String, CachedClient> cache, String key,
+                                  Function<String, RegisteredClient> loader) {
+        Instant now = clock.instant();
+        CachedClient cachedClient = cache.get(key);
+        if (cachedClient != null && now.isBefore(cachedClient.expiresAt())) {
+            hits.increment();
+            return cachedClient.registeredClient();
+        }
+        misses.increment();
+        RegisteredClient registeredClient = loader.apply(key);
+        if (registeredClient != null) {
+            CachedClient loaded = new CachedClient(registeredClient, now.plus(ttl));
+            clientsById.put(registeredClient.getId(), loaded);
+            clientsByClientId.put(registeredClient.getClientId(), loaded);
+        }
+        return registeredClient;
+    }
+
+    private record CachedClient(RegisteredClient registeredClient, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,71 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenIntrospection;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2TokenIntrospectionAuthenticationToken;
+
+public class CachingTokenIntrospectionAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final TokenIntrospectionCache tokenIntrospectionCache;
+    private final TokenDenylistService tokenDenylistService;
+    private final MeterRegistry meterRegistry;
+
+    public CachingTokenIntrospectionAuthenticationProvider(AuthenticationProvider delegate,
+                                                           TokenIntrospectionCache tokenIntrospectionCache,
+                                                           TokenDenylistService tokenDenylistService,
+                                                           MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.tokenIntrospectionCache = tokenIntrospectionCache;
+        this.tokenDenylistService = tokenDenylistService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        OAuth2TokenIntrospectionAuthenticationToken tokenIntrospectionAuthentication =
+                (OAuth2TokenIntrospectionAuthenticationToken) authentication;
+        String token = tokenIntrospectionAuthentication.getToken();
+        String clientId = getClientId(tokenIntrospectionAuthentication);
+        if (clientId != null) {
+            OAuth2TokenIntrospection tokenClaims = tokenIntrospectionCache.get(token);
+            if (tokenClaims != null && !isDenied(tokenClaims)) {
+                meterRegistry.counter("oauth2.introspection.requests", "client_id", clientId, "result", "hit")
+                        .increment();
+                return new OAuth2TokenIntrospectionAuthenticationToken(token,
+                        (Authentication) tokenIntrospectionAuthentication.getPrincipal(), tokenClaims);
+            }
+            meterRegistry.counter("oauth2.introspection.requests", "client_id", clientId, "result", "miss")
+                    .increment();
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result instanceof OAuth2TokenIntrospectionAuthenticationToken tokenIntrospectionResult) {
+            tokenIntrospectionCache.put(token, tokenIntrospectionResult.getTokenClaims());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    // Revocation and logout evict the cache only on the node handling them, the denylists are shared by all nodes
+    private boolean isDenied(OAuth2TokenIntrospection tokenClaims) {
+        return tokenDenylistService.isTokenDenied(tokenClaims.getId())
+                || tokenDenylistService.isPrincipalDenied(tokenClaims.getSubject(), tokenClaims.getIssuedAt());
+    }
+
+    // Only requests from an authenticated client may be answered from the cache
+    private String getClientId(OAuth2TokenIntrospectionAuthenticationToken tokenIntrospectionAuthentication) {
+        if (tokenIntrospectionAuthentication.getPrincipal() instanceof OAuth2ClientAuthenticationToken clientPrincipal
+                && clientPrincipal.isAuthenticated() && clientPrincipal.getRegisteredClient() != null) {
+            return clientPrincipal.getRegisteredClient().getClientId();
+        }
+        return null;
+    }
+}
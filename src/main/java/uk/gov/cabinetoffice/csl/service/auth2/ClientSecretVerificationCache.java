@@ -0,0 +1,71 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.exception.GenericServerException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Client secrets that recently matched their stored (BCrypt) hash. Entries are keyed by the stored hash,
+// which is unique to a client row, and hold an HMAC of the presented secret under a key generated at
+// startup, so neither the secret nor a fast unsalted hash of it is kept in memory.
+@Slf4j
+@Component
+public class ClientSecretVerificationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec hmacKey;
+    private final Cache<String, byte[]> cache;
+
+    public ClientSecretVerificationCache(MeterRegistry meterRegistry,
+                                         @Value("${oauth2.clientSecretCache.maximumSize}") long maximumSize,
+                                         @Value("${oauth2.clientSecretCache.ttlSeconds}") long ttlSeconds) {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "clientSecretVerification");
+    }
+
+    public boolean isVerified(CharSequence rawSecret, String encodedSecret) {
+        byte[] verified = cache.getIfPresent(encodedSecret);
+        return verified != null && MessageDigest.isEqual(verified, hmac(rawSecret));
+    }
+
+    public void putVerified(CharSequence rawSecret, String encodedSecret) {
+        cache.put(encodedSecret, hmac(rawSecret));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        log.debug("ClientSecretVerificationCache: verified client secrets cleared");
+    }
+
+    private byte[] hmac(CharSequence rawSecret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac.doFinal(rawSecret.toString().getBytes(UTF_8));
+        } catch (GeneralSecurityException e) {
+            log.error("ClientSecretVerificationCache.hmac: {}", e.getMessage());
+            throw new GenericServerException("System error");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+
+public interface IOAuth2AuthorizationService extends OAuth2AuthorizationService {
+
+    long removeByPrincipalName(String principalName);
+}
@@ -0,0 +1,22 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import uk.gov.cabinetoffice.csl.repository.Oauth2AuthorizationRepository;
+
+public class JdbcAuthorizationService extends JdbcOAuth2AuthorizationService implements IOAuth2AuthorizationService {
+
+    private final Oauth2AuthorizationRepository oauth2AuthorizationRepository;
+
+    public JdbcAuthorizationService(JdbcTemplate jdbcTemplate, RegisteredClientRepository registeredClientRepository,
+                                    Oauth2AuthorizationRepository oauth2AuthorizationRepository) {
+        super(jdbcTemplate, registeredClientRepository);
+        this.oauth2AuthorizationRepository = oauth2AuthorizationRepository;
+    }
+
+    @Override
+    public long removeByPrincipalName(String principalName) {
+        return oauth2AuthorizationRepository.deleteAllByPrincipalName(principalName);
+    }
+}
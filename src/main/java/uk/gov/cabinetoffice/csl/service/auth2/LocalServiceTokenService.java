@@ -0,0 +1,106 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContext;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.token.DefaultOAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.springframework.security.oauth2.core.AuthorizationGrantType.CLIENT_CREDENTIALS;
+import static org.springframework.security.oauth2.core.ClientAuthenticationMethod.CLIENT_SECRET_BASIC;
+import static org.springframework.security.oauth2.core.OAuth2AccessToken.TokenType.BEARER;
+import static org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token.CLAIMS_METADATA_NAME;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+
+// Issues this service's own client_credentials token without a loopback call to /oauth2/token.
+// The token is generated and stored exactly as the token endpoint would for oauth2.clientId.
+@Slf4j
+@Service
+public class LocalServiceTokenService {
+
+    private final RegisteredClientRepository registeredClientRepository;
+    private final OAuth2AuthorizationService authorizationService;
+    private final JwtGenerator jwtGenerator;
+    private final AuthorizationServerContext authorizationServerContext;
+    private final String clientId;
+
+    public LocalServiceTokenService(RegisteredClientRepository registeredClientRepository,
+                                    OAuth2AuthorizationService authorizationService,
+                                    JwtEncoder jwtEncoder, AccessTokenCustomizer accessTokenCustomizer,
+                                    @Value("${oauth2.serviceUrl}") String issuer,
+                                    @Value("${oauth2.clientId}") String clientId) {
+        this.registeredClientRepository = registeredClientRepository;
+        this.authorizationService = authorizationService;
+        this.jwtGenerator = new JwtGenerator(jwtEncoder);
+        this.jwtGenerator.setJwtCustomizer(accessTokenCustomizer);
+        AuthorizationServerSettings authorizationServerSettings = AuthorizationServerSettings.builder()
+                .issuer(issuer).build();
+        this.authorizationServerContext = new AuthorizationServerContext() {
+            @Override
+            public String getIssuer() {
+                return issuer;
+            }
+
+            @Override
+            public AuthorizationServerSettings getAuthorizationServerSettings() {
+                return authorizationServerSettings;
+            }
+        };
+        this.clientId = clientId;
+    }
+
+    // Returns null when the token cannot be issued locally, e.g. the client does not use self-contained tokens
+    public OAuthToken getServiceToken() {
+        RegisteredClient registeredClient = registeredClientRepository.findByClientId(clientId);
+        if (registeredClient == null
+                || !registeredClient.getAuthorizationGrantTypes().contains(CLIENT_CREDENTIALS)) {
+            log.warn("LocalServiceTokenService.getServiceToken: client {} cannot use client_credentials", clientId);
+            return null;
+        }
+        OAuth2ClientAuthenticationToken clientPrincipal = new OAuth2ClientAuthenticationToken(registeredClient,
+                CLIENT_SECRET_BASIC, null);
+        Set<String> scopes = registeredClient.getScopes();
+        Jwt jwt = jwtGenerator.generate(DefaultOAuth2TokenContext.builder()
+                .registeredClient(registeredClient)
+                .principal(clientPrincipal)
+                .authorizationServerContext(authorizationServerContext)
+                .authorizedScopes(scopes)
+                .tokenType(ACCESS_TOKEN)
+                .authorizationGrantType(CLIENT_CREDENTIALS)
+                .build());
+        if (jwt == null) {
+            log.warn("LocalServiceTokenService.getServiceToken: client {} does not issue self-contained tokens",
+                    clientId);
+            return null;
+        }
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(BEARER, jwt.getTokenValue(), jwt.getIssuedAt(),
+                jwt.getExpiresAt(), scopes);
+        authorizationService.save(OAuth2Authorization.withRegisteredClient(registeredClient)
+                .principalName(clientPrincipal.getName())
+                .authorizationGrantType(CLIENT_CREDENTIALS)
+                .authorizedScopes(scopes)
+                .token(accessToken, metadata -> metadata.put(CLAIMS_METADATA_NAME, jwt.getClaims()))
+                .build());
+
+        OAuthToken oAuthToken = new OAuthToken();
+        oAuthToken.setAccessToken(accessToken.getTokenValue());
+        oAuthToken.setTokenType(BEARER.getValue());
+        oAuthToken.setExpiresIn((int) Duration.between(jwt.getIssuedAt(), jwt.getExpiresAt()).getSeconds());
+        oAuthToken.setScope(String.join(" ", scopes));
+        oAuthToken.setJti(jwt.getId());
+        return oAuthToken;
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class Oauth2AuthorizationLogoutService {
+
+    private final IOAuth2AuthorizationService authorizationService;
+    private final TokenDenylistService tokenDenylistService;
+    private final TokenIntrospectionCache tokenIntrospectionCache;
+    private final TaskExecutor taskExecutor;
+    private final boolean asyncCleanup;
+
+    public Oauth2AuthorizationLogoutService(IOAuth2AuthorizationService authorizationService,
+                                            TokenDenylistService tokenDenylistService,
+                                            TokenIntrospectionCache tokenIntrospectionCache,
+                                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                            @Value("${oauth2.logout.asyncCleanup}") boolean asyncCleanup) {
+        this.authorizationService = authorizationService;
+        this.tokenDenylistService = tokenDenylistService;
+        this.tokenIntrospectionCache = tokenIntrospectionCache;
+        this.taskExecutor = taskExecutor;
+        this.asyncCleanup = asyncCleanup;
+    }
+
+    // The principal is denied on every logout, as other nodes may still hold its tokens in their introspection caches
+    public void removeAuthorizations(String principalName) {
+        tokenIntrospectionCache.evictBySubject(principalName);
+        tokenDenylistService.denyPrincipal(principalName);
+        if (!asyncCleanup) {
+            removeByPrincipalName(principalName);
+            return;
+        }
+        taskExecutor.execute(() -> removeByPrincipalName(principalName));
+    }
+
+    private void removeByPrincipalName(String principalName) {
+        try {
+            long n = authorizationService.removeByPrincipalName(principalName);
+            log.debug("Oauth2AuthorizationLogoutService: {} Oauth2Authorization entries deleted for principal_name {}",
+                    n, principalName);
+        } catch (Exception e) {
+            log.error("Oauth2AuthorizationLogoutService: Unable to delete Oauth2Authorization entries for principal_name {}",
+                    principalName, e);
+            if (!asyncCleanup) {
+                throw e;
+            }
+        }
+    }
+}
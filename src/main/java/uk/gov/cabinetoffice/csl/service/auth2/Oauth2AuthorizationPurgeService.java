@@ -0,0 +1,99 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.gov.cabinetoffice.csl.service.SchedulerLock;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "oauth2.authorizationService.store", havingValue = "jdbc", matchIfMissing = true)
+public class Oauth2AuthorizationPurgeService {
+
+    private static final String LOCK_NAME = "oauth2-authorization-purge";
+    private static final Duration LOCK_AT_MOST = Duration.ofMinutes(30);
+
+    // expires_at is the latest expiry of any token in the authorization and NULL when none has one
+    // (e.g. an authorization request in progress), so those authorizations are kept
+    private static final String DELETE_EXPIRED_AUTHORIZATIONS = """
+            DELETE FROM oauth2_authorization WHERE expires_at < ? LIMIT ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLock schedulerLock;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration lockAtLeast;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pauseMillis;
+    private final DistributionSummary batchSizes;
+    private final Counter deletedRows;
+    private final Timer duration;
+
+    public Oauth2AuthorizationPurgeService(JdbcTemplate jdbcTemplate, SchedulerLock schedulerLock, Clock clock,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${oauth2.authorizationPurge.enabled}") boolean enabled,
+                                           @Value("${oauth2.authorizationPurge.batchSize}") int batchSize,
+                                           @Value("${oauth2.authorizationPurge.maxBatches}") int maxBatches,
+                                           @Value("${oauth2.authorizationPurge.pauseMillis}") long pauseMillis,
+                                           @Value("${oauth2.authorizationPurge.fixedDelayMillis}") long fixedDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLock = schedulerLock;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.lockAtLeast = Duration.ofMillis(fixedDelayMillis * 9 / 10);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMillis = pauseMillis;
+        this.batchSizes = meterRegistry.summary("oauth2.authorization.purge.batch.size");
+        this.deletedRows = meterRegistry.counter("oauth2.authorization.purge.deleted");
+        this.duration = meterRegistry.timer("oauth2.authorization.purge.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.authorizationPurge.fixedDelayMillis}",
+            initialDelayString = "${oauth2.authorizationPurge.initialDelayMillis}")
+    public void scheduledPurge() {
+        if (enabled && !schedulerLock.runExclusively(LOCK_NAME, LOCK_AT_MOST, lockAtLeast,
+                this::purgeExpiredAuthorizations)) {
+            log.debug("Oauth2AuthorizationPurgeService: purged by another node, skipping");
+        }
+    }
+
+    public long purgeExpiredAuthorizations() {
+        long total = duration.record(this::deleteInBatches);
+        log.info("Oauth2AuthorizationPurgeService: {} expired Oauth2Authorization entries deleted", total);
+        return total;
+    }
+
+    private long deleteInBatches() {
+        long total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Timestamp now = Timestamp.from(clock.instant());
+            int deleted = jdbcTemplate.update(DELETE_EXPIRED_AUTHORIZATIONS, now, batchSize);
+            batchSizes.record(deleted);
+            deletedRows.increment(deleted);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+}
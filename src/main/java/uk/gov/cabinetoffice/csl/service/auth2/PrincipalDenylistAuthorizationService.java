@@ -0,0 +1,52 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+// Hides authorizations of logged out principals that are still waiting to be removed.
+public class PrincipalDenylistAuthorizationService implements IOAuth2AuthorizationService {
+
+    private final IOAuth2AuthorizationService delegate;
+    private final TokenDenylistService tokenDenylistService;
+
+    public PrincipalDenylistAuthorizationService(IOAuth2AuthorizationService delegate,
+                                                 TokenDenylistService tokenDenylistService) {
+        this.delegate = delegate;
+        this.tokenDenylistService = tokenDenylistService;
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        delegate.save(authorization);
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        delegate.remove(authorization);
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        OAuth2Authorization authorization = delegate.findByToken(token, tokenType);
+        if (authorization == null) {
+            return null;
+        }
+        OAuth2Authorization.Token<OAuth2Token> authorizedToken = authorization.getToken(token);
+        if (authorizedToken != null && tokenDenylistService.isPrincipalDenied(authorization.getPrincipalName(),
+                authorizedToken.getToken().getIssuedAt())) {
+            return null;
+        }
+        return authorization;
+    }
+
+    @Override
+    public long removeByPrincipalName(String principalName) {
+        return delegate.removeByPrincipalName(principalName);
+    }
+}
@@ -0,0 +1,221 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.security.oauth2.core.*;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static uk.gov.cabinetoffice.csl.util.TokenHashUtils.getSha256Hash;
+
+// Authorizations expire with the last of their tokens and are indexed by state,
+// by the SHA-256 hash of each token value and by principal name.
+@Slf4j
+public class RedisAuthorizationService implements IOAuth2AuthorizationService {
+
+    private static final String AUTHORIZATION = "authorization:";
+    private static final String PRINCIPAL = "principal:";
+    private static final Duration MINIMUM_TTL = Duration.ofSeconds(1);
+
+    private static final List<IndexedToken> INDEXED_TOKENS = List.of(
+            new IndexedToken(OAuth2TokenType.ACCESS_TOKEN.getValue(), OAuth2AccessToken.class),
+            new IndexedToken(OAuth2TokenType.REFRESH_TOKEN.getValue(), OAuth2RefreshToken.class),
+            new IndexedToken(OAuth2ParameterNames.CODE, OAuth2AuthorizationCode.class),
+            new IndexedToken(OidcParameterNames.ID_TOKEN, OidcIdToken.class),
+            new IndexedToken(OAuth2ParameterNames.USER_CODE, OAuth2UserCode.class),
+            new IndexedToken(OAuth2ParameterNames.DEVICE_CODE, OAuth2DeviceCode.class));
+
+    private final RedisTemplate<String, OAuth2Authorization> authorizationTemplate;
+    private final StringRedisTemplate indexTemplate;
+    private final String keyPrefix;
+    private final Duration defaultTtl;
+    private final Clock clock;
+
+    public RedisAuthorizationService(RedisConnectionFactory redisConnectionFactory, String keyPrefix,
+                                     Duration defaultTtl, Clock clock) {
+        RedisTemplate<String, OAuth2Authorization> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(redisConnectionFactory);
+        redisTemplate.setKeySerializer(RedisSerializer.string());
+        redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer(getClass().getClassLoader()));
+        redisTemplate.afterPropertiesSet();
+        this.authorizationTemplate = redisTemplate;
+        this.indexTemplate = new StringRedisTemplate(redisConnectionFactory);
+        this.keyPrefix = keyPrefix;
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        OAuth2Authorization existingAuthorization = findById(authorization.getId());
+        if (existingAuthorization != null) {
+            indexTemplate.delete(getIndexKeys(existingAuthorization));
+        }
+        Instant now = clock.instant();
+        Duration ttl = getTtl(authorization, now);
+        String id = authorization.getId();
+        authorizationTemplate.opsForValue().set(authorizationKey(id), authorization, ttl);
+
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            indexTemplate.opsForValue().set(indexKey(OAuth2ParameterNames.STATE, state), id, ttl);
+        }
+        for (IndexedToken indexedToken : INDEXED_TOKENS) {
+            OAuth2Authorization.Token<? extends OAuth2Token> token = authorization.getToken(indexedToken.tokenClass());
+            if (token != null) {
+                indexTemplate.opsForValue().set(indexKey(indexedToken.type(), token.getToken().getTokenValue()), id,
+                        getTtl(token.getToken(), now, ttl));
+            }
+        }
+
+        String principalKey = principalKey(authorization.getPrincipalName());
+        indexTemplate.opsForSet().add(principalKey, id);
+        Long principalTtlSeconds = indexTemplate.getExpire(principalKey, SECONDS);
+        if (principalTtlSeconds == null || principalTtlSeconds < ttl.getSeconds()) {
+            indexTemplate.expire(principalKey, ttl);
+        }
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        List<String> keys = getIndexKeys(authorization);
+        keys.add(authorizationKey(authorization.getId()));
+        indexTemplate.delete(keys);
+        indexTemplate.opsForSet().remove(principalKey(authorization.getPrincipalName()), authorization.getId());
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        String key = authorizationKey(id);
+        try {
+            return authorizationTemplate.opsForValue().get(key);
+        } catch (SerializationException e) {
+            log.warn("Unable to deserialize OAuth2Authorization {} from Redis, removing it: {}", id, e.toString());
+            authorizationTemplate.delete(key);
+            return null;
+        }
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        if (tokenType != null) {
+            return findByIndex(tokenType.getValue(), token);
+        }
+        OAuth2Authorization authorization = findByIndex(OAuth2ParameterNames.STATE, token);
+        for (int i = 0; authorization == null && i < INDEXED_TOKENS.size(); i++) {
+            authorization = findByIndex(INDEXED_TOKENS.get(i).type(), token);
+        }
+        return authorization;
+    }
+
+    @Override
+    public long removeByPrincipalName(String principalName) {
+        String principalKey = principalKey(principalName);
+        Set<String> ids = indexTemplate.opsForSet().members(principalKey);
+        long removed = 0;
+        if (ids != null) {
+            for (String id : ids) {
+                OAuth2Authorization authorization = findById(id);
+                if (authorization != null) {
+                    remove(authorization);
+                    removed++;
+                }
+            }
+        }
+        indexTemplate.delete(principalKey);
+        return removed;
+    }
+
+    private OAuth2Authorization findByIndex(String type, String token) {
+        String id = indexTemplate.opsForValue().get(indexKey(type, token));
+        if (id == null) {
+            return null;
+        }
+        OAuth2Authorization authorization = findById(id);
+        if (authorization == null) {
+            return null;
+        }
+        boolean matches = OAuth2ParameterNames.STATE.equals(type)
+                ? token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE))
+                : authorization.getToken(token) != null;
+        return matches ? authorization : null;
+    }
+
+    private List<String> getIndexKeys(OAuth2Authorization authorization) {
+        List<String> keys = new ArrayList<>();
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            keys.add(indexKey(OAuth2ParameterNames.STATE, state));
+        }
+        for (IndexedToken indexedToken : INDEXED_TOKENS) {
+            OAuth2Authorization.Token<? extends OAuth2Token> token = authorization.getToken(indexedToken.tokenClass());
+            if (token != null) {
+                keys.add(indexKey(indexedToken.type(), token.getToken().getTokenValue()));
+            }
+        }
+        return keys;
+    }
+
+    private Duration getTtl(OAuth2Authorization authorization, Instant now) {
+        Instant expiresAt = null;
+        for (IndexedToken indexedToken : INDEXED_TOKENS) {
+            OAuth2Authorization.Token<? extends OAuth2Token> token = authorization.getToken(indexedToken.tokenClass());
+            if (token != null && token.getToken().getExpiresAt() != null
+                    && (expiresAt == null || token.getToken().getExpiresAt().isAfter(expiresAt))) {
+                expiresAt = token.getToken().getExpiresAt();
+            }
+        }
+        if (expiresAt == null) {
+            return defaultTtl;
+        }
+        return max(Duration.between(now, expiresAt), MINIMUM_TTL);
+    }
+
+    private Duration getTtl(OAuth2Token token, Instant now, Duration authorizationTtl) {
+        if (token.getExpiresAt() == null) {
+            return authorizationTtl;
+        }
+        return max(Duration.between(now, token.getExpiresAt()), MINIMUM_TTL);
+    }
+
+    private Duration max(Duration duration, Duration minimum) {
+        return duration.compareTo(minimum) < 0 ? minimum : duration;
+    }
+
+    private String authorizationKey(String id) {
+        return keyPrefix + AUTHORIZATION + id;
+    }
+
+    private String indexKey(String type, String value) {
+        return keyPrefix + type + ":" + getSha256Hash(value);
+    }
+
+    private String principalKey(String principalName) {
+        return keyPrefix + PRINCIPAL + principalName;
+    }
+
+    private record IndexedToken(String type, Class<? extends OAuth2Token> tokenClass) {
+    }
+}
@@ -0,0 +1,128 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.service.client.identity.IIdentityClient;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.time.LocalDateTime.now;
+
+// Keeps the current service token in memory and replaces it in the background before it expires,
+// so outbound requests only wait for a token when none is held or the held one is about to expire.
+@Slf4j
+@Component
+public class ServiceTokenHolder {
+
+    private final IIdentityClient identityClient;
+    private final Clock clock;
+    private final TaskExecutor taskExecutor;
+    private final long refreshAheadSeconds;
+    private final long minimumValiditySeconds;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Object loadLock = new Object();
+    private volatile OAuthToken serviceToken;
+
+    public ServiceTokenHolder(IIdentityClient identityClient, Clock clock,
+                              @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                              @Value("${oauth2.serviceTokenHolder.refreshAheadSeconds}") long refreshAheadSeconds,
+                              @Value("${oauth2.refresh.serviceTokenCache.beforeSecondsToExpire}") long minimumValiditySeconds) {
+        this.identityClient = identityClient;
+        this.clock = clock;
+        this.taskExecutor = taskExecutor;
+        this.refreshAheadSeconds = refreshAheadSeconds;
+        this.minimumValiditySeconds = minimumValiditySeconds;
+    }
+
+    public String getAccessToken() {
+        OAuthToken token = serviceToken;
+        if (!isValidFor(token, minimumValiditySeconds)) {
+            token = load();
+        } else if (!isValidFor(token, refreshAheadSeconds(token))) {
+            refreshAsync();
+        }
+        return token.getAccessToken();
+    }
+
+    // Drops the held token and the shared cached one, so the next request uses a newly issued token
+    public void evict() {
+        synchronized (loadLock) {
+            serviceToken = null;
+            identityClient.evictServiceTokenFromCache();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.serviceTokenHolder.refreshCheckMillis}",
+            initialDelayString = "${oauth2.serviceTokenHolder.refreshCheckMillis}")
+    public void refreshIfExpiring() {
+        OAuthToken token = serviceToken;
+        if (token != null && !isValidFor(token, refreshAheadSeconds(token))) {
+            refreshAsync();
+        }
+    }
+
+    private OAuthToken load() {
+        synchronized (loadLock) {
+            OAuthToken token = serviceToken;
+            if (!isValidFor(token, minimumValiditySeconds)) {
+                token = fetch();
+                serviceToken = token;
+            }
+            return token;
+        }
+    }
+
+    private void refreshAsync() {
+        if (refreshing.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::refresh);
+            } catch (RuntimeException e) {
+                refreshing.set(false);
+                log.warn("ServiceTokenHolder.refreshAsync: unable to schedule refresh: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void refresh() {
+        try {
+            serviceToken = fetch();
+            log.debug("ServiceTokenHolder.refresh: service token refreshed, expires at {}",
+                    serviceToken.getExpiryDateTime());
+        } catch (RuntimeException e) {
+            log.warn("ServiceTokenHolder.refresh: service token refresh failed: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    // The shared serviceToken cache may still hold the token being replaced, in which case it is evicted
+    private OAuthToken fetch() {
+        OAuthToken token = identityClient.getServiceToken();
+        if (!isValidFor(token, refreshAheadSeconds(token))) {
+            identityClient.evictServiceTokenFromCache();
+            token = identityClient.getServiceToken();
+        }
+        return token;
+    }
+
+    // A token issued for less than refreshAheadSeconds is replaced half way through its lifetime instead,
+    // otherwise every request would trigger another refresh
+    private long refreshAheadSeconds(OAuthToken token) {
+        if (token == null || token.getExpiresIn() == null) {
+            return refreshAheadSeconds;
+        }
+        return Math.min(refreshAheadSeconds, token.getExpiresIn() / 2);
+    }
+
+    private boolean isValidFor(OAuthToken token, long seconds) {
+        if (token == null || token.getExpiryDateTime() == null) {
+            return false;
+        }
+        return now(clock).plusSeconds(seconds).isBefore(token.getExpiryDateTime());
+    }
+}
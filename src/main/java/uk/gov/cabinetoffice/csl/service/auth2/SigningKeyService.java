@@ -0,0 +1,205 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.gov.cabinetoffice.csl.domain.SigningKey;
+import uk.gov.cabinetoffice.csl.exception.GenericServerException;
+import uk.gov.cabinetoffice.csl.repository.SigningKeyRepository;
+import uk.gov.cabinetoffice.csl.service.SchedulerLock;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static uk.gov.cabinetoffice.csl.util.TextEncryptionUtils.getDecryptedText;
+import static uk.gov.cabinetoffice.csl.util.TextEncryptionUtils.getEncryptedText;
+
+// Holds the HS256 key derived from oauth2.jwtKey plus the asymmetric keys stored in signing_key.
+// Asymmetric keys are published at /oauth2/jwks as soon as they are created, sign tokens once
+// active and stay published after rotation until the tokens they signed have expired.
+// Keys are created at startup and by the rotation schedule, on one node at a time, and never start
+// signing before every node has reloaded and published them.
+@Slf4j
+@Service
+public class SigningKeyService {
+
+    private static final String ROTATION_LOCK = "signing-key-rotation";
+    private static final Duration ROTATION_LOCK_AT_MOST = Duration.ofMinutes(10);
+    private static final Duration ROTATION_LOCK_AT_LEAST = Duration.ofMinutes(1);
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final Clock clock;
+    private final String encryptionKey;
+    private final OctetSequenceKey hmacKey;
+    private final List<JWSAlgorithm> algorithms;
+    private final Duration rotationPeriod;
+    private final Duration prepublishPeriod;
+    private final Duration retentionPeriod;
+    private final Duration minimumPrepublishPeriod;
+    private final SchedulerLock schedulerLock;
+    private final AtomicReference<SigningKeys> signingKeys = new AtomicReference<>();
+
+    public SigningKeyService(SigningKeyRepository signingKeyRepository, SchedulerLock schedulerLock, Clock clock,
+                             @Value("${oauth2.jwtKey}") String jwtKey,
+                             @Value("${textEncryption.encryptionKey}") String encryptionKey,
+                             @Value("${oauth2.signingKeys.algorithms}") List<String> algorithms,
+                             @Value("${oauth2.signingKeys.rotationDays}") long rotationDays,
+                             @Value("${oauth2.signingKeys.prepublishHours}") long prepublishHours,
+                             @Value("${oauth2.signingKeys.retentionDays}") long retentionDays,
+                             @Value("${oauth2.signingKeys.reloadMillis}") long reloadMillis) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.schedulerLock = schedulerLock;
+        this.clock = clock;
+        this.encryptionKey = encryptionKey;
+        this.hmacKey = new OctetSequenceKey.Builder(new SecretKeySpec(jwtKey.getBytes(), "HMACSHA256"))
+                .algorithm(JWSAlgorithm.HS256)
+                .build();
+        this.algorithms = algorithms.stream().filter(a -> !a.isBlank()).map(a -> JWSAlgorithm.parse(a.trim())).toList();
+        this.algorithms.forEach(this::checkSupported);
+        this.rotationPeriod = Duration.ofDays(rotationDays);
+        this.prepublishPeriod = Duration.ofHours(prepublishHours);
+        this.retentionPeriod = Duration.ofDays(retentionDays);
+        // Every node reloads its keys at least once in this period
+        this.minimumPrepublishPeriod = Duration.ofMillis(reloadMillis).multipliedBy(2);
+    }
+
+    public JWKSet getJwkSet() {
+        return getSigningKeys().jwkSet();
+    }
+
+    // Returns the kid of the key currently signing with the algorithm, or null if there is none
+    public String getSigningKeyId(JWSAlgorithm algorithm) {
+        return getSigningKeys().signingKeyIds().get(algorithm);
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.signingKeys.reloadMillis}",
+            initialDelayString = "${oauth2.signingKeys.reloadMillis}")
+    public void reload() {
+        signingKeys.set(loadSigningKeys());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialise() {
+        try {
+            rotateKeys();
+        } catch (RuntimeException e) {
+            log.error("SigningKeyService.initialise: unable to create signing keys, retrying on the rotation schedule", e);
+        }
+    }
+
+    @Scheduled(cron = "${oauth2.signingKeys.rotationCron}")
+    public void rotateKeys() {
+        schedulerLock.runExclusively(ROTATION_LOCK, ROTATION_LOCK_AT_MOST, ROTATION_LOCK_AT_LEAST, this::createDueKeys);
+        reload();
+    }
+
+    private void createDueKeys() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        long deleted = signingKeyRepository.deleteByExpiresAtLessThanEqual(now);
+        if (deleted > 0) {
+            log.info("SigningKeyService: {} expired signing keys deleted", deleted);
+        }
+        List<SigningKey> keys = signingKeyRepository.findByExpiresAtAfter(now);
+        LocalDateTime earliestActivation = now.plus(minimumPrepublishPeriod);
+        for (JWSAlgorithm algorithm : algorithms) {
+            LocalDateTime latestDeactivatesAt = keys.stream()
+                    .filter(k -> algorithm.getName().equals(k.getAlgorithm()))
+                    .map(SigningKey::getDeactivatesAt)
+                    .max(Comparator.naturalOrder())
+                    .orElse(null);
+            if (latestDeactivatesAt == null) {
+                createSigningKey(algorithm, now, earliestActivation);
+            } else if (!latestDeactivatesAt.minus(prepublishPeriod).isAfter(now)) {
+                createSigningKey(algorithm, now,
+                        latestDeactivatesAt.isAfter(earliestActivation) ? latestDeactivatesAt : earliestActivation);
+            }
+        }
+    }
+
+    private SigningKeys getSigningKeys() {
+        SigningKeys current = signingKeys.get();
+        if (current == null) {
+            synchronized (this) {
+                current = signingKeys.get();
+                if (current == null) {
+                    reload();
+                    current = signingKeys.get();
+                }
+            }
+        }
+        return current;
+    }
+
+    private SigningKeys loadSigningKeys() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<SigningKey> keys = new ArrayList<>(signingKeyRepository.findByExpiresAtAfter(now));
+        keys.sort(Comparator.comparing(SigningKey::getActivatesAt).thenComparing(SigningKey::getKid));
+        List<JWK> jwks = new ArrayList<>();
+        jwks.add(hmacKey);
+        Map<JWSAlgorithm, String> signingKeyIds = new HashMap<>();
+        for (SigningKey key : keys) {
+            try {
+                jwks.add(JWK.parse(getDecryptedText(key.getPrivateKey(), encryptionKey)));
+            } catch (ParseException | GenericServerException e) {
+                log.error("SigningKeyService: Unable to read signing key {}", key.getKid(), e);
+                continue;
+            }
+            // Keys are ordered by activation so the most recently activated key wins
+            if (!key.getActivatesAt().isAfter(now) && key.getDeactivatesAt().isAfter(now)) {
+                signingKeyIds.put(JWSAlgorithm.parse(key.getAlgorithm()), key.getKid());
+            }
+        }
+        for (SigningKey key : keys) {
+            JWSAlgorithm algorithm = JWSAlgorithm.parse(key.getAlgorithm());
+            if (!signingKeyIds.containsKey(algorithm) && !key.getActivatesAt().isAfter(now)) {
+                signingKeyIds.put(algorithm, key.getKid());
+            }
+        }
+        return new SigningKeys(new JWKSet(jwks), Map.copyOf(signingKeyIds));
+    }
+
+    private void createSigningKey(JWSAlgorithm algorithm, LocalDateTime now, LocalDateTime activatesAt) {
+        String kid = UUID.randomUUID().toString();
+        JWK jwk = generateKey(algorithm, kid);
+        LocalDateTime deactivatesAt = activatesAt.plus(rotationPeriod);
+        signingKeyRepository.save(new SigningKey(kid, algorithm.getName(),
+                getEncryptedText(jwk.toJSONString(), encryptionKey), now, activatesAt, deactivatesAt,
+                deactivatesAt.plus(retentionPeriod)));
+        log.info("SigningKeyService: {} signing key {} created, active from {}", algorithm, kid, activatesAt);
+    }
+
+    private JWK generateKey(JWSAlgorithm algorithm, String kid) {
+        try {
+            if (JWSAlgorithm.Family.RSA.contains(algorithm)) {
+                return new RSAKeyGenerator(2048).keyID(kid).algorithm(algorithm).keyUse(KeyUse.SIGNATURE).generate();
+            }
+            return new ECKeyGenerator(Curve.forJWSAlgorithm(algorithm).iterator().next())
+                    .keyID(kid).algorithm(algorithm).keyUse(KeyUse.SIGNATURE).generate();
+        } catch (JOSEException e) {
+            log.error("SigningKeyService.generateKey: Error has occurred", e);
+            throw new GenericServerException("System error");
+        }
+    }
+
+    private void checkSupported(JWSAlgorithm algorithm) {
+        if (!JWSAlgorithm.Family.RSA.contains(algorithm) && !JWSAlgorithm.Family.EC.contains(algorithm)) {
+            throw new IllegalArgumentException("Unsupported signing key algorithm: " + algorithm);
+        }
+    }
+
+    private record SigningKeys(JWKSet jwkSet, Map<JWSAlgorithm, String> signingKeyIds) {
+    }
+}
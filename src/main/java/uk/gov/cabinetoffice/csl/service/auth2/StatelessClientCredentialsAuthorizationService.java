@@ -0,0 +1,140 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.security.oauth2.core.AuthorizationGrantType.CLIENT_CREDENTIALS;
+import static org.springframework.security.oauth2.core.OAuth2AccessToken.TokenType.BEARER;
+import static org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token.CLAIMS_METADATA_NAME;
+import static org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat.SELF_CONTAINED;
+
+// client_credentials authorizations are not persisted: the JWT is self-contained, so it is rebuilt
+// into an authorization when looked up, and revocation is recorded in the jti denylist instead.
+@Slf4j
+public class StatelessClientCredentialsAuthorizationService implements IOAuth2AuthorizationService {
+
+    private static final String CLIENT_AUTHORITY = "CLIENT";
+
+    private final IOAuth2AuthorizationService delegate;
+    private final RegisteredClientRepository registeredClientRepository;
+    private final JwtDecoder jwtDecoder;
+    private final TokenDenylistService tokenDenylistService;
+
+    public StatelessClientCredentialsAuthorizationService(IOAuth2AuthorizationService delegate,
+                                                          RegisteredClientRepository registeredClientRepository,
+                                                          JwtDecoder jwtDecoder,
+                                                          TokenDenylistService tokenDenylistService) {
+        this.delegate = delegate;
+        this.registeredClientRepository = registeredClientRepository;
+        this.jwtDecoder = jwtDecoder;
+        this.tokenDenylistService = tokenDenylistService;
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        if (!isStateless(authorization)) {
+            delegate.save(authorization);
+            return;
+        }
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+        if (accessToken != null && accessToken.isInvalidated()) {
+            denyAccessToken(accessToken);
+        }
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        if (!isStateless(authorization)) {
+            delegate.remove(authorization);
+            return;
+        }
+        if (authorization.getAccessToken() != null) {
+            denyAccessToken(authorization.getAccessToken());
+        }
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        OAuth2Authorization authorization = delegate.findByToken(token, tokenType);
+        if (authorization == null && (tokenType == null || OAuth2TokenType.ACCESS_TOKEN.equals(tokenType))) {
+            authorization = findClientCredentialsAuthorization(token);
+        }
+        return authorization;
+    }
+
+    @Override
+    public long removeByPrincipalName(String principalName) {
+        return delegate.removeByPrincipalName(principalName);
+    }
+
+    private OAuth2Authorization findClientCredentialsAuthorization(String token) {
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(token);
+        } catch (JwtException e) {
+            return null;
+        }
+        Collection<String> authorities = jwt.getClaimAsStringList("authorities");
+        String clientId = jwt.getClaimAsString("client_id");
+        if (authorities == null || !authorities.contains(CLIENT_AUTHORITY) || clientId == null
+                || tokenDenylistService.isTokenDenied(jwt.getId())) {
+            return null;
+        }
+        RegisteredClient registeredClient = registeredClientRepository.findByClientId(clientId);
+        if (registeredClient == null) {
+            return null;
+        }
+        Set<String> scopes = new HashSet<>(registeredClient.getScopes());
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(BEARER, token, jwt.getIssuedAt(), jwt.getExpiresAt(),
+                scopes);
+        return OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id(jwt.getId())
+                .principalName(clientId)
+                .authorizationGrantType(CLIENT_CREDENTIALS)
+                .authorizedScopes(scopes)
+                .token(accessToken, metadata -> metadata.put(CLAIMS_METADATA_NAME, jwt.getClaims()))
+                .build();
+    }
+
+    private boolean isStateless(OAuth2Authorization authorization) {
+        if (!CLIENT_CREDENTIALS.equals(authorization.getAuthorizationGrantType())) {
+            return false;
+        }
+        RegisteredClient registeredClient = registeredClientRepository.findById(authorization.getRegisteredClientId());
+        return registeredClient != null
+                && SELF_CONTAINED.equals(registeredClient.getTokenSettings().getAccessTokenFormat());
+    }
+
+    private void denyAccessToken(OAuth2Authorization.Token<OAuth2AccessToken> accessToken) {
+        Object jti = accessToken.getClaims() != null ? accessToken.getClaims().get("jti") : null;
+        if (jti == null) {
+            try {
+                jti = jwtDecoder.decode(accessToken.getToken().getTokenValue()).getId();
+            } catch (JwtException e) {
+                log.warn("StatelessClientCredentialsAuthorizationService: unable to read jti of revoked token: {}",
+                        e.getMessage());
+                return;
+            }
+        }
+        tokenDenylistService.denyToken(jti.toString(), accessToken.getToken().getExpiresAt());
+    }
+}
@@ -0,0 +1,61 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+
+// Revoked access tokens that have no stored authorization are remembered by jti until they expire.
+// Logged out principals are remembered briefly so their tokens are rejected while removal completes.
+@Slf4j
+@Service
+public class TokenDenylistService {
+
+    public static final String REVOKED_TOKENS_CACHE = "revokedTokens";
+    public static final String REVOKED_PRINCIPALS_CACHE = "revokedPrincipals";
+
+    private final CacheManager cacheManager;
+    private final Clock clock;
+
+    public TokenDenylistService(CacheManager cacheManager, Clock clock) {
+        this.cacheManager = cacheManager;
+        this.clock = clock;
+    }
+
+    public void denyToken(String jti, Instant expiresAt) {
+        Cache cache = cacheManager.getCache(REVOKED_TOKENS_CACHE);
+        if (cache != null && jti != null && expiresAt != null && clock.instant().isBefore(expiresAt)) {
+            cache.put(jti, expiresAt.getEpochSecond());
+            log.debug("TokenDenylistService: token with jti {} denied until {}", jti, expiresAt);
+        }
+    }
+
+    public boolean isTokenDenied(String jti) {
+        Cache cache = cacheManager.getCache(REVOKED_TOKENS_CACHE);
+        if (cache == null || jti == null) {
+            return false;
+        }
+        Long expiresAtEpochSecond = cache.get(jti, Long.class);
+        return expiresAtEpochSecond != null && clock.instant().getEpochSecond() < expiresAtEpochSecond;
+    }
+
+    public void denyPrincipal(String principalName) {
+        Cache cache = cacheManager.getCache(REVOKED_PRINCIPALS_CACHE);
+        if (cache != null && principalName != null) {
+            cache.put(principalName, clock.instant().toEpochMilli());
+            log.debug("TokenDenylistService: tokens issued to {} denied", principalName);
+        }
+    }
+
+    public boolean isPrincipalDenied(String principalName, Instant issuedAt) {
+        Cache cache = cacheManager.getCache(REVOKED_PRINCIPALS_CACHE);
+        if (cache == null || principalName == null) {
+            return false;
+        }
+        Long deniedAtEpochMilli = cache.get(principalName, Long.class);
+        return deniedAtEpochMilli != null && (issuedAt == null || issuedAt.toEpochMilli() <= deniedAtEpochMilli);
+    }
+}
@@ -0,0 +1,116 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenIntrospection;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static uk.gov.cabinetoffice.csl.util.TokenHashUtils.getSha256Hash;
+
+// Active introspection results keyed by token hash, expiring with the token (capped at the
+// configured TTL). Entries are also indexed by subject so a logout can evict them.
+@Slf4j
+@Component
+public class TokenIntrospectionCache {
+
+    private final Clock clock;
+    private final Duration maximumTtl;
+    private final Cache<String, OAuth2TokenIntrospection> cache;
+    private final Map<String, Set<String>> tokenHashesBySubject = new ConcurrentHashMap<>();
+
+    public TokenIntrospectionCache(Clock clock, MeterRegistry meterRegistry,
+                                   @Value("${oauth2.introspectionCache.maximumSize}") long maximumSize,
+                                   @Value("${oauth2.introspectionCache.maximumTtlSeconds}") long maximumTtlSeconds) {
+        this.clock = clock;
+        this.maximumTtl = Duration.ofSeconds(maximumTtlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new IntrospectionExpiry())
+                .removalListener(this::onRemoval)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tokenIntrospection");
+    }
+
+    public OAuth2TokenIntrospection get(String token) {
+        OAuth2TokenIntrospection tokenClaims = cache.getIfPresent(getSha256Hash(token));
+        if (tokenClaims != null && !clock.instant().isBefore(tokenClaims.getExpiresAt())) {
+            return null;
+        }
+        return tokenClaims;
+    }
+
+    public void put(String token, OAuth2TokenIntrospection tokenClaims) {
+        if (!tokenClaims.isActive() || tokenClaims.getExpiresAt() == null
+                || !clock.instant().isBefore(tokenClaims.getExpiresAt())) {
+            return;
+        }
+        String tokenHash = getSha256Hash(token);
+        if (tokenClaims.getSubject() != null) {
+            tokenHashesBySubject.computeIfAbsent(tokenClaims.getSubject(), s -> ConcurrentHashMap.newKeySet())
+                    .add(tokenHash);
+        }
+        cache.put(tokenHash, tokenClaims);
+    }
+
+    public void evict(String token) {
+        cache.invalidate(getSha256Hash(token));
+    }
+
+    public void evictBySubject(String subject) {
+        Set<String> tokenHashes = tokenHashesBySubject.remove(subject);
+        if (tokenHashes != null) {
+            cache.invalidateAll(tokenHashes);
+            log.debug("TokenIntrospectionCache: {} cached introspections evicted for {}", tokenHashes.size(), subject);
+        }
+    }
+
+    private void onRemoval(String tokenHash, OAuth2TokenIntrospection tokenClaims, RemovalCause cause) {
+        if (cause != RemovalCause.REPLACED && tokenHash != null && tokenClaims != null
+                && tokenClaims.getSubject() != null) {
+            tokenHashesBySubject.computeIfPresent(tokenClaims.getSubject(), (subject, tokenHashes) -> {
+                tokenHashes.remove(tokenHash);
+                return tokenHashes.isEmpty() ? null : tokenHashes;
+            });
+        }
+    }
+
+    private class IntrospectionExpiry implements Expiry<String, OAuth2TokenIntrospection> {
+
+        @Override
+        public long expireAfterCreate(String key, OAuth2TokenIntrospection tokenClaims, long currentTime) {
+            Instant expiresAt = tokenClaims.getExpiresAt();
+            Duration ttl = Duration.between(clock.instant(), expiresAt);
+            if (ttl.isNegative()) {
+                return 0;
+            }
+            return (ttl.compareTo(maximumTtl) < 0 ? ttl : maximumTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, OAuth2TokenIntrospection tokenClaims, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, tokenClaims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, OAuth2TokenIntrospection tokenClaims, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
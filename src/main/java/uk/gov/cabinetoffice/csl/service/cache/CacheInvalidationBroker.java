@@ -0,0 +1,103 @@
+package uk.gov.cabinetoffice.csl.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Tells the other nodes, through Redis pub/sub, that an in-process cache has to be cleared.
+// Does nothing when the application does not use the Redis cache.
+@Slf4j
+@Component
+public class CacheInvalidationBroker implements DisposableBean {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final String channel;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private volatile boolean subscribed;
+
+    public CacheInvalidationBroker(ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                   @Value("${spring.cache.type}") String cacheType,
+                                   @Value("${nearCache.invalidationChannel}") String channel) {
+        this.channel = channel;
+        if ("redis".equalsIgnoreCase(cacheType)) {
+            RedisConnectionFactory connectionFactory = redisConnectionFactory.getObject();
+            this.redisTemplate = new StringRedisTemplate(connectionFactory);
+            this.listenerContainer = new RedisMessageListenerContainer();
+            this.listenerContainer.setConnectionFactory(connectionFactory);
+            this.listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(channel));
+            this.listenerContainer.afterPropertiesSet();
+            subscribe();
+        } else {
+            this.redisTemplate = null;
+            this.listenerContainer = null;
+        }
+    }
+
+    // The listener runs when another node publishes an invalidation of cacheName
+    public void addListener(String cacheName, Runnable listener) {
+        listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void publish(String cacheName) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + " " + cacheName);
+        } catch (DataAccessException e) {
+            log.warn("CacheInvalidationBroker.publish: unable to publish invalidation of {}: {}", cacheName,
+                    e.getMessage());
+        }
+    }
+
+    // Redis may not be reachable when the node starts; until the subscription succeeds the near caches
+    // on this node are only refreshed by their TTL
+    @Scheduled(fixedDelayString = "${nearCache.subscribeRetryMillis}")
+    public void subscribe() {
+        if (listenerContainer == null || subscribed) {
+            return;
+        }
+        try {
+            listenerContainer.start();
+            subscribed = true;
+        } catch (RuntimeException e) {
+            listenerContainer.stop();
+            log.warn("CacheInvalidationBroker.subscribe: unable to subscribe to {}: {}", channel, e.getMessage());
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        String[] invalidation = new String(message.getBody(), UTF_8).split(" ", 2);
+        if (invalidation.length != 2 || nodeId.equals(invalidation[0])) {
+            return;
+        }
+        log.debug("CacheInvalidationBroker.onMessage: clearing {}", invalidation[1]);
+        listeners.getOrDefault(invalidation[1], List.of()).forEach(Runnable::run);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.cabinetoffice.csl.service.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+// An in-process (L1) copy of a shared (L2) cache. Reads are served from L1 when possible, writes go to
+// both and make the other nodes drop their L1 copy of the whole cache.
+public class NearCache implements Cache {
+
+    private final Cache sharedCache;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache;
+    private final CacheInvalidationBroker cacheInvalidationBroker;
+
+    public NearCache(Cache sharedCache, com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache,
+                     CacheInvalidationBroker cacheInvalidationBroker) {
+        this.sharedCache = sharedCache;
+        this.localCache = localCache;
+        this.cacheInvalidationBroker = cacheInvalidationBroker;
+        cacheInvalidationBroker.addListener(getName(), localCache::invalidateAll);
+    }
+
+    @Override
+    public String getName() {
+        return sharedCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return sharedCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = localCache.getIfPresent(key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper valueWrapper = sharedCache.get(key);
+        if (valueWrapper != null && valueWrapper.get() != null) {
+            localCache.put(key, valueWrapper.get());
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        Object value = valueWrapper != null ? valueWrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = localCache.getIfPresent(key);
+        if (value != null) {
+            return (T) value;
+        }
+        T loaded = sharedCache.get(key, valueLoader);
+        if (loaded != null) {
+            localCache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        sharedCache.put(key, value);
+        if (value != null) {
+            localCache.put(key, value);
+        } else {
+            localCache.invalidate(key);
+        }
+        cacheInvalidationBroker.publish(getName());
+    }
+
+    @Override
+    public void evict(Object key) {
+        sharedCache.evict(key);
+        localCache.invalidate(key);
+        cacheInvalidationBroker.publish(getName());
+    }
+
+    @Override
+    public void clear() {
+        sharedCache.clear();
+        localCache.invalidateAll();
+        cacheInvalidationBroker.publish(getName());
+    }
+}
@@ -0,0 +1,67 @@
+package uk.gov.cabinetoffice.csl.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Puts a bounded in-process near cache in front of the named caches of the shared cache manager
+public class NearCacheManager implements CacheManager {
+
+    private final CacheManager sharedCacheManager;
+    private final Set<String> nearCacheNames;
+    private final long maximumSize;
+    private final Duration ttl;
+    private final CacheInvalidationBroker cacheInvalidationBroker;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, NearCache> nearCaches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(CacheManager sharedCacheManager, Set<String> nearCacheNames, long maximumSize,
+                            Duration ttl, CacheInvalidationBroker cacheInvalidationBroker,
+                            MeterRegistry meterRegistry) {
+        this.sharedCacheManager = sharedCacheManager;
+        this.nearCacheNames = nearCacheNames;
+        this.maximumSize = maximumSize;
+        this.ttl = ttl;
+        this.cacheInvalidationBroker = cacheInvalidationBroker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!nearCacheNames.contains(name)) {
+            return sharedCacheManager.getCache(name);
+        }
+        NearCache nearCache = nearCaches.get(name);
+        if (nearCache == null) {
+            Cache sharedCache = sharedCacheManager.getCache(name);
+            if (sharedCache == null) {
+                return null;
+            }
+            nearCache = nearCaches.computeIfAbsent(name, n -> createNearCache(sharedCache));
+        }
+        return nearCache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return sharedCacheManager.getCacheNames();
+    }
+
+    private NearCache createNearCache(Cache sharedCache) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "near." + sharedCache.getName());
+        return new NearCache(sharedCache, localCache, cacheInvalidationBroker);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.cabinetoffice.csl.exception.ClientErrorResponseException;
 import uk.gov.cabinetoffice.csl.exception.GenericServerException;
 
 @Slf4j
@@ -28,6 +29,10 @@ public class HttpClient implements IHttpClient {
             }
             msg = String.format("%s Error was: %s", msg, e.getMessage());
             log.error(msg);
+            // A 4xx is the service's answer to the request rather than a failure of the service
+            if (e.getStatusCode().is4xxClientError()) {
+                throw new ClientErrorResponseException("System error", e.getStatusCode().value());
+            }
             throw new GenericServerException("System error");
         }
     }
@@ -8,6 +8,7 @@ import org.springframework.web.client.RestTemplate;
 import uk.gov.cabinetoffice.csl.service.auth2.RestTemplateOAuthInterceptor;
 import uk.gov.cabinetoffice.csl.service.client.HttpClient;
 import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
+import uk.gov.cabinetoffice.csl.service.client.PooledHttpRequestFactory;
 
 @Configuration
 public class CSLServiceClientConfig {
@@ -22,9 +23,10 @@ public class CSLServiceClientConfig {
     }
 
     @Bean(name = "cslServiceHttpClient")
-    IHttpClient cslServiceClient(RestTemplateBuilder restTemplateBuilder) {
+    IHttpClient cslServiceClient(RestTemplateBuilder restTemplateBuilder, PooledHttpRequestFactory pooledHttpRequestFactory) {
         RestTemplate restTemplate = restTemplateBuilder
                 .rootUri(cslServiceBaseUrl)
+                .requestFactory(() -> pooledHttpRequestFactory.create("cslService"))
                 .additionalInterceptors(restTemplateOAuthInterceptor)
                 .build();
         return new HttpClient(restTemplate);
@@ -0,0 +1,85 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Agency token answers from the Civil Servant Registry. Positive answers are held in agencyTokens and
+// negative ones, which expire sooner, in agencyTokensNegative. Lookups that fail are not cached.
+@Component
+public class AgencyTokenCache {
+
+    public static final String AGENCY_TOKENS = "agencyTokens";
+    public static final String AGENCY_TOKENS_NEGATIVE = "agencyTokensNegative";
+
+    private final CacheManager cacheManager;
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter misses;
+
+    public AgencyTokenCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.hits = meterRegistry.counter("csrs.agency_token.cache", "result", "hit");
+        this.negativeHits = meterRegistry.counter("csrs.agency_token.cache", "result", "negative_hit");
+        this.misses = meterRegistry.counter("csrs.agency_token.cache", "result", "miss");
+    }
+
+    public boolean isPresent(String key, BooleanSupplier loader) {
+        Object cached = getCached(key);
+        if (cached != null) {
+            return Boolean.TRUE.equals(cached);
+        }
+        boolean present = loader.getAsBoolean();
+        put(key, present ? Boolean.TRUE : null);
+        return present;
+    }
+
+    public Optional<AgencyToken> getAgencyToken(String key, Supplier<AgencyToken> loader) {
+        Object cached = getCached(key);
+        if (cached != null) {
+            return cached instanceof AgencyToken agencyToken ? Optional.of(agencyToken) : Optional.empty();
+        }
+        AgencyToken agencyToken = loader.get();
+        put(key, agencyToken);
+        return Optional.ofNullable(agencyToken);
+    }
+
+    private Object getCached(String key) {
+        Cache.ValueWrapper cached = getCache(AGENCY_TOKENS).get(key);
+        if (cached != null && cached.get() != null) {
+            hits.increment();
+            return cached.get();
+        }
+        cached = getCache(AGENCY_TOKENS_NEGATIVE).get(key);
+        if (cached != null && cached.get() != null) {
+            negativeHits.increment();
+            return cached.get();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // A negative answer is stored as FALSE, as the caches do not hold null values
+    private void put(String key, Object value) {
+        if (value != null) {
+            getCache(AGENCY_TOKENS).put(key, value);
+        } else {
+            getCache(AGENCY_TOKENS_NEGATIVE).put(key, Boolean.FALSE);
+        }
+    }
+
+    private Cache getCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache " + name + " is not configured");
+        }
+        return cache;
+    }
+}
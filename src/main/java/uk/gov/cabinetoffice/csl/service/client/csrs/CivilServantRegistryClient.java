@@ -1,25 +1,38 @@
 package uk.gov.cabinetoffice.csl.service.client.csrs;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.http.RequestEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.exception.ClientErrorResponseException;
 import uk.gov.cabinetoffice.csl.exception.GenericServerException;
 import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
 import uk.gov.cabinetoffice.csl.dto.DomainsResponse;
 import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static java.lang.String.format;
+import static uk.gov.cabinetoffice.csl.util.TokenHashUtils.getSha256Hash;
 import static java.util.stream.Collectors.toList;
 
 @Slf4j
@@ -41,42 +54,142 @@ public class CivilServantRegistryClient implements ICivilServantRegistryClient {
     @Value("${civilServantRegistry.agencyTokensUrl}")
     private String agencyTokensUrl;
 
+    @Value("${civilServantRegistry.getOrganisations.maxAttempts}")
+    private int getOrganisationsMaxAttempts;
+
+    @Value("${civilServantRegistry.getOrganisations.retryBackoffMillis}")
+    private long getOrganisationsRetryBackoffMillis;
+
     private final IHttpClient httpClient;
 
     private final CsrsServiceDataTransformer csrsServiceDataTransformer;
 
+    private final ThreadPoolTaskExecutor organisationsFetchExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ClusteredCacheLoader clusteredCacheLoader;
+
+    private final CsrsCircuitBreaker circuitBreaker;
+
+    private final CsrsSnapshotStore snapshotStore;
+
+    private final AgencyTokenCache agencyTokenCache;
+
     public CivilServantRegistryClient(@Qualifier("civilServantRegistryHttpClient") IHttpClient httpClient,
-                                      CsrsServiceDataTransformer csrsServiceDataTransformer) {
+                                      CsrsServiceDataTransformer csrsServiceDataTransformer,
+                                      MeterRegistry meterRegistry,
+                                      ClusteredCacheLoader clusteredCacheLoader,
+                                      CsrsCircuitBreaker circuitBreaker,
+                                      CsrsSnapshotStore snapshotStore,
+                                      AgencyTokenCache agencyTokenCache,
+                                      @Value("${civilServantRegistry.getOrganisations.parallelism}") int parallelism) {
         this.httpClient = httpClient;
         this.csrsServiceDataTransformer = csrsServiceDataTransformer;
+        this.meterRegistry = meterRegistry;
+        this.clusteredCacheLoader = clusteredCacheLoader;
+        this.circuitBreaker = circuitBreaker;
+        this.snapshotStore = snapshotStore;
+        this.agencyTokenCache = agencyTokenCache;
+        this.organisationsFetchExecutor = createOrganisationsFetchExecutor(parallelism);
     }
 
-    @Override
-    public boolean isDomainInAnAgencyToken(String domain) {
+    // A dedicated fixed size pool rather than the common ForkJoinPool, so the blocking page requests neither
+    // starve other users of the common pool nor send more than parallelism concurrent requests to CSRS
+    private static ThreadPoolTaskExecutor createOrganisationsFetchExecutor(int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("csrs-organisations-");
+        executor.initialize();
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        organisationsFetchExecutor.shutdown();
+    }
+
+    // Fails fast while the circuit breaker is open, otherwise records the outcome of the call on it.
+    // A 4xx response shows that CSRS is answering, so it is recorded as a success
+    private <T> T callRegistry(Supplier<T> call) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.warn("CivilServantRegistryClient: circuit breaker is open, not calling Civil Servant Registry");
+            throw new GenericServerException("System error");
+        }
         try {
-            String url = agencyTokensUrl + String.format("?domain=%s", domain);
-            RequestEntity<Void> request = RequestEntity.get(url).build();
-            return httpClient.executeRequest(request, Boolean.class);
-        } catch (Exception e) {
-            return false;
+            T result = call.get();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (ClientErrorResponseException e) {
+            circuitBreaker.onSuccess();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
         }
     }
 
-    @Override
-    public boolean isDomainInAnAgencyTokenWithOrg(String domain, String orgCode) {
+    // Saves a successful fetch as the last known good snapshot and serves that snapshot when the fetch fails
+    private <T> T fetchWithSnapshotFallback(String name, Supplier<T> fetch) {
+        try {
+            T fetched = callRegistry(fetch);
+            snapshotStore.save(name, fetched);
+            return fetched;
+        } catch (RuntimeException e) {
+            T snapshot = snapshotStore.load(name);
+            if (snapshot == null) {
+                throw e;
+            }
+            log.warn("CivilServantRegistryClient: serving last known good {} snapshot: {}", name, e.getMessage());
+            meterRegistry.counter("csrs.snapshot.served", "cache", name).increment();
+            return snapshot;
+        }
+    }
+
+    private boolean isDomainInAnAgencyToken(String cacheKey, String url, String domain) {
         try {
-            String url = agencyTokensUrl + String.format("?domain=%s&code=%s", domain, orgCode);
-            RequestEntity<Void> request = RequestEntity.get(url).build();
-            return httpClient.executeRequest(request, Boolean.class);
+            return agencyTokenCache.isPresent(cacheKey, () -> {
+                RequestEntity<Void> request = RequestEntity.get(url).build();
+                return Boolean.TRUE.equals(callRegistry(() -> httpClient.executeRequest(request, Boolean.class)));
+            });
         } catch (Exception e) {
+            log.warn("Unable to check whether domain {} is in an agency token: {}", domain, e.getMessage());
             return false;
         }
     }
 
     @Override
-    @Cacheable("allowDomains")
+    public boolean isDomainInAnAgencyToken(String domain) {
+        return isDomainInAnAgencyToken("domain:" + domain.toLowerCase(Locale.ROOT),
+                agencyTokensUrl + String.format("?domain=%s", domain), domain);
+    }
+
+    @Override
+    public boolean isDomainInAnAgencyTokenWithOrg(String domain, String orgCode) {
+        return isDomainInAnAgencyToken("domain:" + domain.toLowerCase(Locale.ROOT) + ":org:" + orgCode,
+                agencyTokensUrl + String.format("?domain=%s&code=%s", domain, orgCode), domain);
+    }
+
+    @Override
+    @Cacheable(value = "allowDomains", sync = true)
     public List<String> getAllowListDomains() {
         log.info("getAllowListDomains: Fetching allowlist domains");
+        return clusteredCacheLoader.load("allowDomains", SimpleKey.EMPTY,
+                () -> fetchWithSnapshotFallback("allowDomains", this::fetchAllowListDomains));
+    }
+
+    @Override
+    @CachePut("allowDomains")
+    public List<String> refreshAllowListDomainCache() {
+        log.info("refreshAllowListDomainCache: Refreshing allowlist domains");
+        List<String> allowListDomains = callRegistry(this::fetchAllowListDomains);
+        snapshotStore.save("allowDomains", allowListDomains);
+        return allowListDomains;
+    }
+
+    private List<String> fetchAllowListDomains() {
         try {
             log.info("getAllowListDomains: Fetching allowlist domains from Civil Servant Registry");
             RequestEntity<Void> request = RequestEntity.get(domainsUrl).build();
@@ -108,24 +221,76 @@ public class CivilServantRegistryClient implements ICivilServantRegistryClient {
         return httpClient.executeRequest(request, GetOrganisationsResponse.class);
     }
 
+    private List<OrganisationalUnit> getOrganisationsPage(int page) {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                List<OrganisationalUnit> content = getOrganisations(getOrganisationsMaxPageSize, page).getContent();
+                long elapsed = System.nanoTime() - start;
+                meterRegistry.timer("csrs.organisations.page", "outcome", "success")
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+                log.debug("getAllOrganisations: page {} fetched in {} ms (attempt {})", page,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), attempt);
+                return content;
+            } catch (RuntimeException e) {
+                long elapsed = System.nanoTime() - start;
+                meterRegistry.timer("csrs.organisations.page", "outcome", "failure")
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+                if (attempt >= getOrganisationsMaxAttempts) {
+                    log.error("getAllOrganisations: page {} failed after {} attempts", page, attempt, e);
+                    throw e;
+                }
+                log.warn("getAllOrganisations: page {} failed in {} ms (attempt {}), retrying: {}", page,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), attempt, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(getOrganisationsRetryBackoffMillis * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GenericServerException("System error");
+        }
+    }
+
     @Override
-    @Cacheable("organisations")
+    @Cacheable(value = "organisations", sync = true)
     public List<OrganisationalUnit> getAllOrganisations() {
         log.info("getAllOrganisations: Fetching all organisations");
+        return clusteredCacheLoader.load("organisations", SimpleKey.EMPTY,
+                () -> fetchWithSnapshotFallback("organisations", this::fetchAllOrganisations));
+    }
+
+    @Override
+    @CachePut("organisations")
+    public List<OrganisationalUnit> refreshOrganisationsCache() {
+        log.info("refreshOrganisationsCache: Refreshing all organisations");
+        List<OrganisationalUnit> organisationalUnits = callRegistry(this::fetchAllOrganisations);
+        snapshotStore.save("organisations", organisationalUnits);
+        return organisationalUnits;
+    }
+
+    private List<OrganisationalUnit> fetchAllOrganisations() {
         log.info("getAllOrganisations: Fetching all organisations from Civil Servant Registry API");
+        Timer.Sample sample = Timer.start(meterRegistry);
         List<OrganisationalUnit> organisationalUnits = new ArrayList<>();
         GetOrganisationsResponse initialResponse = getOrganisations(1, 0);
         if (initialResponse.getTotalElements() >= 1) {
             List<CompletableFuture<List<OrganisationalUnit>>> futures =
                     IntStream.range(0, (int) Math.ceil((double) initialResponse.getTotalElements() / getOrganisationsMaxPageSize))
                             .boxed()
-                            .map(i -> CompletableFuture.supplyAsync(() -> getOrganisations(getOrganisationsMaxPageSize, i).getContent())).toList();
+                            .map(i -> CompletableFuture.supplyAsync(() -> getOrganisationsPage(i), organisationsFetchExecutor)).toList();
 
             organisationalUnits = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
                     .thenApply(i -> futures.stream().flatMap(listCompletableFuture -> listCompletableFuture.join().stream()).collect(toList())).join();
 
         }
-        log.info("organisationalUnits size {}", organisationalUnits.size());
+        long elapsed = sample.stop(meterRegistry.timer("csrs.organisations.fetch"));
+        log.info("organisationalUnits size {} fetched in {} ms", organisationalUnits.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
         return csrsServiceDataTransformer.transformOrganisations(organisationalUnits);
     }
 
@@ -135,36 +300,63 @@ public class CivilServantRegistryClient implements ICivilServantRegistryClient {
         log.info("Evicting organisations cache");
     }
 
+    @Override
+    public Instant getOrganisationsFetchedAt() {
+        return snapshotStore.getFetchedAt("organisations");
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = AgencyTokenCache.AGENCY_TOKENS, allEntries = true),
+            @CacheEvict(value = AgencyTokenCache.AGENCY_TOKENS_NEGATIVE, allEntries = true)
+    })
+    public void evictAgencyTokenCaches() {
+        log.info("Evicting agency token caches");
+    }
+
     @Override
     public void removeOrganisationalUnitFromCivilServant(String uid) {
         try {
             log.info("Removing organisation from user {}", uid);
             String url = format("%s/resource/%s/remove_organisation", civilServantUrl, uid);
             RequestEntity<Void> request = RequestEntity.post(url).build();
-            httpClient.executeRequest(request, Void.class);
+            callRegistry(() -> httpClient.executeRequest(request, Void.class));
         } catch (Exception e) {
             log.error("An error has occurred while removing organisation from user using Civil Servant registry", e);
             throw new GenericServerException("System error");
         }
     }
 
-    private Optional<AgencyToken> getAgencyToken(String url) {
+    private Optional<AgencyToken> getAgencyToken(String cacheKey, String url) {
         try {
-            RequestEntity<Void> request = RequestEntity.get(url).build();
-            return Optional.of(httpClient.executeRequest(request, AgencyToken.class));
+            return agencyTokenCache.getAgencyToken(cacheKey, () -> {
+                RequestEntity<Void> request = RequestEntity.get(url).build();
+                try {
+                    return callRegistry(() -> httpClient.executeRequest(request, AgencyToken.class));
+                } catch (ClientErrorResponseException e) {
+                    // CSRS answers 404 for a token it does not hold, which is cached as a negative answer
+                    if (e.isNotFound()) {
+                        return null;
+                    }
+                    throw e;
+                }
+            });
         } catch (Exception e) {
+            log.warn("Unable to get agency token from Civil Servant Registry: {}", e.getMessage());
             return Optional.empty();
         }
     }
 
     @Override
     public Optional<AgencyToken> getAgencyToken(String domain, String token, String organisation) {
-        return getAgencyToken(agencyTokensUrl + String.format("?domain=%s&token=%s&code=%s", domain, token, organisation));
+        // The token is part of the key, so the key is hashed rather than stored in the clear
+        return getAgencyToken("token:" + getSha256Hash(String.join(":", domain, token, organisation)),
+                agencyTokensUrl + String.format("?domain=%s&token=%s&code=%s", domain, token, organisation));
     }
 
     @Override
     public Optional<AgencyToken> getAgencyTokenWithUid(String uid) {
-        return getAgencyToken(agencyTokensUrl + String.format("?uid=%s", uid));
+        return getAgencyToken("uid:" + uid, agencyTokensUrl + String.format("?uid=%s", uid));
     }
 
     @Override
@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import uk.gov.cabinetoffice.csl.service.client.HttpClient;
 import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
+import uk.gov.cabinetoffice.csl.service.client.PooledHttpRequestFactory;
 import uk.gov.cabinetoffice.csl.service.auth2.RestTemplateOAuthInterceptor;
 
 @Configuration
@@ -22,9 +23,10 @@ public class CivilServantRegistryClientConfig {
     }
 
     @Bean(name = "civilServantRegistryHttpClient")
-    IHttpClient civilServantRegistryClient(RestTemplateBuilder restTemplateBuilder) {
+    IHttpClient civilServantRegistryClient(RestTemplateBuilder restTemplateBuilder, PooledHttpRequestFactory pooledHttpRequestFactory) {
         RestTemplate restTemplate = restTemplateBuilder
                 .rootUri(civilServantRegistryBaseUrl)
+                .requestFactory(() -> pooledHttpRequestFactory.create("civilServantRegistry"))
                 .additionalInterceptors(restTemplateOAuthInterceptor)
                 .build();
         return new HttpClient(restTemplate);
@@ -0,0 +1,145 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import uk.gov.cabinetoffice.csl.exception.GenericServerException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Loads a cache entry on a miss while holding a Redis lock, so only one node in the cluster rebuilds it.
+// The lock holder writes the entry to the shared cache before releasing the lock.
+// Nodes that do not get the lock wait for the entry to appear in the shared cache and return it, and fall
+// back to loading it themselves if it has not appeared once the lock is released or the wait times out.
+// Concurrent misses on one node are already serialised by @Cacheable(sync = true).
+@Slf4j
+@Component
+public class ClusteredCacheLoader {
+
+    private static final DefaultRedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final String lockKeyPrefix;
+    private final Duration lockTtl;
+    private final Duration maximumWait;
+    private final long pollMillis;
+    private volatile StringRedisTemplate redisTemplate;
+
+    public ClusteredCacheLoader(ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                CacheManager cacheManager,
+                                @Value("${civilServantRegistry.cacheLoadLock.enabled}") boolean enabled,
+                                @Value("${spring.cache.redis.key-prefix}") String keyPrefix,
+                                @Value("${civilServantRegistry.cacheLoadLock.ttlMillis}") long lockTtlMillis,
+                                @Value("${civilServantRegistry.cacheLoadLock.maximumWaitMillis}") long maximumWaitMillis,
+                                @Value("${civilServantRegistry.cacheLoadLock.pollMillis}") long pollMillis) {
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.lockKeyPrefix = keyPrefix + "lock:";
+        this.lockTtl = Duration.ofMillis(lockTtlMillis);
+        this.maximumWait = Duration.ofMillis(maximumWaitMillis);
+        this.pollMillis = pollMillis;
+    }
+
+    public <T> T load(String cacheName, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String lockKey = lockKeyPrefix + cacheName;
+        String lockValue = UUID.randomUUID().toString();
+        Boolean locked;
+        try {
+            locked = getRedisTemplate().opsForValue().setIfAbsent(lockKey, lockValue, lockTtl);
+        } catch (DataAccessException e) {
+            log.warn("ClusteredCacheLoader.load: unable to take {} load lock, loading without it: {}", cacheName,
+                    e.getMessage());
+            return loader.get();
+        }
+        if (Boolean.TRUE.equals(locked)) {
+            try {
+                T loaded = loader.get();
+                // Written before the lock is released, @Cacheable only writes it once this method has returned
+                putInCache(cacheName, key, loaded);
+                return loaded;
+            } finally {
+                releaseLock(lockKey, lockValue);
+            }
+        }
+        T loaded = awaitLoad(cacheName, key, lockKey);
+        if (loaded != null) {
+            return loaded;
+        }
+        log.info("ClusteredCacheLoader.load: {} was not loaded by another node in time, loading it", cacheName);
+        return loader.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T awaitLoad(String cacheName, Object key, String lockKey) {
+        Cache cache = cacheManager.getCache(cacheName);
+        long deadline = System.nanoTime() + maximumWait.toNanos();
+        try {
+            while (cache != null && System.nanoTime() < deadline) {
+                Thread.sleep(pollMillis);
+                Cache.ValueWrapper cached = cache.get(key);
+                if (cached != null && cached.get() != null) {
+                    log.debug("ClusteredCacheLoader.awaitLoad: {} loaded by another node", cacheName);
+                    return (T) cached.get();
+                }
+                if (!Boolean.TRUE.equals(getRedisTemplate().hasKey(lockKey))) {
+                    cached = cache.get(key);
+                    return cached != null ? (T) cached.get() : null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GenericServerException("System error");
+        } catch (DataAccessException e) {
+            log.warn("ClusteredCacheLoader.awaitLoad: unable to read {} load lock: {}", cacheName, e.getMessage());
+        }
+        return null;
+    }
+
+    private void putInCache(String cacheName, Object key, Object value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || value == null) {
+            return;
+        }
+        try {
+            cache.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("ClusteredCacheLoader.putInCache: unable to cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private void releaseLock(String lockKey, String lockValue) {
+        try {
+            getRedisTemplate().execute(RELEASE_LOCK, List.of(lockKey), lockValue);
+        } catch (DataAccessException e) {
+            log.warn("ClusteredCacheLoader.releaseLock: unable to release {}, it expires in {}: {}", lockKey, lockTtl,
+                    e.getMessage());
+        }
+    }
+
+    private StringRedisTemplate getRedisTemplate() {
+        StringRedisTemplate template = redisTemplate;
+        if (template == null) {
+            template = new StringRedisTemplate(redisConnectionFactory.getObject());
+            redisTemplate = template;
+        }
+        return template;
+    }
+}
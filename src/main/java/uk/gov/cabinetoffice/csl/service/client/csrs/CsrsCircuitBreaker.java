@@ -0,0 +1,80 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+// Stops calling the Civil Servant Registry after failureThreshold consecutive failures. Once openMillis
+// has passed a single probe call is let through: it closes the breaker if it succeeds and reopens it if not.
+@Slf4j
+@Component
+public class CsrsCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Clock clock;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Counter rejected;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean probeInFlight;
+
+    public CsrsCircuitBreaker(Clock clock, MeterRegistry meterRegistry,
+                              @Value("${civilServantRegistry.circuitBreaker.failureThreshold}") int failureThreshold,
+                              @Value("${civilServantRegistry.circuitBreaker.openMillis}") long openMillis) {
+        this.clock = clock;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Duration.ofMillis(openMillis);
+        this.rejected = meterRegistry.counter("csrs.circuit_breaker.rejected");
+        meterRegistry.gauge("csrs.circuit_breaker.state", this, breaker -> breaker.getState().ordinal());
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN;
+            log.info("CsrsCircuitBreaker: half open, probing the Civil Servant Registry");
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("CsrsCircuitBreaker: closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("CsrsCircuitBreaker: opened after {} consecutive failures", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = clock.instant();
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,102 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The last allowlist and organisations successfully fetched from the Civil Servant Registry. Snapshots are
+// kept in memory and, when the Redis cache is in use, under a key without expiry so a node that starts
+// while the registry is down can still serve them. The time each snapshot was fetched is kept alongside it,
+// so the age of a list is known whether it was just fetched or is a snapshot served during an outage.
+@Slf4j
+@Component
+public class CsrsSnapshotStore {
+
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+    private final Clock clock;
+    private final boolean redisEnabled;
+    private final String keyPrefix;
+    private final Map<String, Object> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, Instant> fetchedAt = new ConcurrentHashMap<>();
+    private volatile RedisTemplate<String, Object> redisTemplate;
+
+    public CsrsSnapshotStore(ObjectProvider<RedisConnectionFactory> redisConnectionFactory, Clock clock,
+                             @Value("${spring.cache.type}") String cacheType,
+                             @Value("${spring.cache.redis.key-prefix}") String keyPrefix) {
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.clock = clock;
+        this.redisEnabled = "redis".equalsIgnoreCase(cacheType);
+        this.keyPrefix = keyPrefix + "snapshot:";
+    }
+
+    public void save(String name, Object value) {
+        Instant now = clock.instant();
+        snapshots.put(name, value);
+        fetchedAt.put(name, now);
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            getRedisTemplate().opsForValue().set(keyPrefix + name, value);
+            getRedisTemplate().opsForValue().set(keyPrefix + name + ":fetchedAt", now);
+        } catch (DataAccessException | SerializationException e) {
+            log.warn("CsrsSnapshotStore.save: unable to persist {} snapshot: {}", name, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String name) {
+        Object snapshot = snapshots.get(name);
+        if (snapshot == null && redisEnabled) {
+            try {
+                snapshot = getRedisTemplate().opsForValue().get(keyPrefix + name);
+                if (snapshot != null) {
+                    snapshots.putIfAbsent(name, snapshot);
+                }
+            } catch (DataAccessException | SerializationException e) {
+                log.warn("CsrsSnapshotStore.load: unable to read {} snapshot: {}", name, e.getMessage());
+            }
+        }
+        return (T) snapshot;
+    }
+
+    // The time the latest snapshot was fetched, which is also when the cached list was, or null if unknown.
+    // Another node may have fetched a newer list since this one did, so the shared value is read first
+    public Instant getFetchedAt(String name) {
+        if (redisEnabled) {
+            try {
+                Object shared = getRedisTemplate().opsForValue().get(keyPrefix + name + ":fetchedAt");
+                if (shared instanceof Instant sharedFetchedAt) {
+                    return sharedFetchedAt;
+                }
+            } catch (DataAccessException | SerializationException e) {
+                log.warn("CsrsSnapshotStore.getFetchedAt: unable to read {} snapshot time: {}", name, e.getMessage());
+            }
+        }
+        return fetchedAt.get(name);
+    }
+
+    private RedisTemplate<String, Object> getRedisTemplate() {
+        RedisTemplate<String, Object> template = redisTemplate;
+        if (template == null) {
+            template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory.getObject());
+            template.setKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(new OrganisationalUnitsRedisSerializer());
+            template.afterPropertiesSet();
+            redisTemplate = template;
+        }
+        return template;
+    }
+}
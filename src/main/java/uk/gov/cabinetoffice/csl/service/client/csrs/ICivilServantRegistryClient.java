@@ -3,6 +3,7 @@ package uk.gov.cabinetoffice.csl.service.client.csrs;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
 import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +15,20 @@ public interface ICivilServantRegistryClient {
 
     List<String> getAllowListDomains();
 
+    List<String> refreshAllowListDomainCache();
+
     void evictAllowListDomainCache();
 
     List<OrganisationalUnit> getAllOrganisations();
 
+    List<OrganisationalUnit> refreshOrganisationsCache();
+
     void evictOrganisationsCache();
 
+    Instant getOrganisationsFetchedAt();
+
+    void evictAgencyTokenCaches();
+
     void removeOrganisationalUnitFromCivilServant(String uid);
 
     Optional<AgencyToken> getAgencyToken(String domain, String token, String organisation);
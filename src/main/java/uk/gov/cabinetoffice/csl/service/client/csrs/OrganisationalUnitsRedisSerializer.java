@@ -0,0 +1,238 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+
+import java.io.*;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Writes the cached organisations as a flat list: each unit refers to its parent by id instead of
+// carrying its children, and agency tokens shared down a hierarchy are written once. The child
+// lists are rebuilt from the parent ids when the list is read back. Values in any other format,
+// such as entries written before this serializer was introduced, are read with JDK serialization.
+public class OrganisationalUnitsRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int MAGIC = 0x4F55_4C01;
+
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!isOrganisationalUnitList(value)) {
+            return jdkSerializer.serialize(value);
+        }
+        @SuppressWarnings("unchecked")
+        List<OrganisationalUnit> organisationalUnits = (List<OrganisationalUnit>) value;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(organisationalUnits.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            Map<AgencyToken, Integer> agencyTokenIndexes = new IdentityHashMap<>();
+            Map<String, Integer> agencyTokenIndexesByUid = new HashMap<>();
+            List<AgencyToken> agencyTokens = new ArrayList<>();
+            for (OrganisationalUnit organisationalUnit : organisationalUnits) {
+                AgencyToken agencyToken = organisationalUnit.getAgencyToken();
+                if (agencyToken != null && !agencyTokenIndexes.containsKey(agencyToken)) {
+                    Integer index = agencyToken.getUid() != null ? agencyTokenIndexesByUid.get(agencyToken.getUid()) : null;
+                    if (index == null) {
+                        index = agencyTokens.size();
+                        agencyTokens.add(agencyToken);
+                        if (agencyToken.getUid() != null) {
+                            agencyTokenIndexesByUid.put(agencyToken.getUid(), index);
+                        }
+                    }
+                    agencyTokenIndexes.put(agencyToken, index);
+                }
+            }
+            out.writeInt(agencyTokens.size());
+            for (AgencyToken agencyToken : agencyTokens) {
+                writeAgencyToken(out, agencyToken);
+            }
+            out.writeInt(organisationalUnits.size());
+            for (OrganisationalUnit organisationalUnit : organisationalUnits) {
+                AgencyToken agencyToken = organisationalUnit.getAgencyToken();
+                writeOrganisationalUnit(out, organisationalUnit,
+                        agencyToken != null ? agencyTokenIndexes.get(agencyToken) : -1);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Unable to serialize organisational units", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 4 || readInt(bytes) != MAGIC) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 4, bytes.length - 4))) {
+            AgencyToken[] agencyTokens = new AgencyToken[in.readInt()];
+            for (int i = 0; i < agencyTokens.length; i++) {
+                agencyTokens[i] = readAgencyToken(in);
+            }
+            int size = in.readInt();
+            List<OrganisationalUnit> organisationalUnits = new ArrayList<>(size);
+            Map<Integer, OrganisationalUnit> organisationalUnitsById = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                OrganisationalUnit organisationalUnit = readOrganisationalUnit(in, agencyTokens);
+                organisationalUnits.add(organisationalUnit);
+                if (organisationalUnit.getId() != null) {
+                    organisationalUnitsById.put(organisationalUnit.getId(), organisationalUnit);
+                }
+            }
+            for (OrganisationalUnit organisationalUnit : organisationalUnits) {
+                OrganisationalUnit parent = organisationalUnit.getParentId() != null
+                        ? organisationalUnitsById.get(organisationalUnit.getParentId()) : null;
+                if (parent != null) {
+                    parent.addDescendant(organisationalUnit);
+                }
+            }
+            return organisationalUnits;
+        } catch (IOException e) {
+            throw new SerializationException("Unable to deserialize organisational units", e);
+        }
+    }
+
+    private boolean isOrganisationalUnitList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof OrganisationalUnit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeOrganisationalUnit(DataOutputStream out, OrganisationalUnit organisationalUnit,
+                                         int agencyTokenIndex) throws IOException {
+        writeInteger(out, organisationalUnit.getId());
+        writeString(out, organisationalUnit.getName());
+        writeString(out, organisationalUnit.getHref());
+        writeString(out, organisationalUnit.getAbbreviation());
+        writeString(out, organisationalUnit.getFormattedName());
+        writeInteger(out, organisationalUnit.getParentId());
+        writeString(out, organisationalUnit.getCode());
+        writeDomains(out, organisationalUnit.getLinkedDomains());
+        out.writeInt(agencyTokenIndex);
+    }
+
+    private OrganisationalUnit readOrganisationalUnit(DataInputStream in, AgencyToken[] agencyTokens)
+            throws IOException {
+        OrganisationalUnit organisationalUnit = new OrganisationalUnit();
+        organisationalUnit.setId(readInteger(in));
+        organisationalUnit.setName(readString(in));
+        organisationalUnit.setHref(readString(in));
+        organisationalUnit.setAbbreviation(readString(in));
+        organisationalUnit.setFormattedName(readString(in));
+        organisationalUnit.setParentId(readInteger(in));
+        organisationalUnit.setCode(readString(in));
+        organisationalUnit.setDomains(readDomains(in));
+        int agencyTokenIndex = in.readInt();
+        if (agencyTokenIndex >= 0) {
+            organisationalUnit.setAgencyToken(agencyTokens[agencyTokenIndex]);
+        }
+        return organisationalUnit;
+    }
+
+    private void writeAgencyToken(DataOutputStream out, AgencyToken agencyToken) throws IOException {
+        writeString(out, agencyToken.getUid());
+        writeString(out, agencyToken.getToken());
+        writeLong(out, agencyToken.getCapacity());
+        writeDomains(out, agencyToken.getAgencyDomains());
+        writeString(out, agencyToken.getDomain());
+        writeString(out, agencyToken.getOrg());
+        writeLong(out, agencyToken.getCapacityUsed());
+    }
+
+    private AgencyToken readAgencyToken(DataInputStream in) throws IOException {
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(readString(in));
+        agencyToken.setToken(readString(in));
+        agencyToken.setCapacity(readLong(in));
+        agencyToken.setAgencyDomains(readDomains(in));
+        agencyToken.setDomain(readString(in));
+        agencyToken.setOrg(readString(in));
+        agencyToken.setCapacityUsed(readLong(in));
+        return agencyToken;
+    }
+
+    private static void writeDomains(DataOutputStream out, List<Domain> domains) throws IOException {
+        if (domains == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(domains.size());
+        for (Domain domain : domains) {
+            writeLong(out, domain.getId());
+            writeString(out, domain.getDomain());
+        }
+    }
+
+    private static List<Domain> readDomains(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<Domain> domains = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            domains.add(new Domain(readLong(in), readString(in)));
+        }
+        return domains;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static int readInt(byte[] bytes) {
+        return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+    }
+}
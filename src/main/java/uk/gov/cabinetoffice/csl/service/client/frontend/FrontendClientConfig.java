@@ -8,6 +8,7 @@ import org.springframework.web.client.RestTemplate;
 import uk.gov.cabinetoffice.csl.service.auth2.RestTemplateOAuthInterceptor;
 import uk.gov.cabinetoffice.csl.service.client.HttpClient;
 import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
+import uk.gov.cabinetoffice.csl.service.client.PooledHttpRequestFactory;
 
 @Configuration
 public class FrontendClientConfig {
@@ -22,9 +23,10 @@ public class FrontendClientConfig {
     }
 
     @Bean(name = "lpgUiClient")
-    IHttpClient identityClient(RestTemplateBuilder restTemplateBuilder) {
+    IHttpClient identityClient(RestTemplateBuilder restTemplateBuilder, PooledHttpRequestFactory pooledHttpRequestFactory) {
         RestTemplate restTemplate = restTemplateBuilder
                 .rootUri(lpgUiBaseUrl)
+                .requestFactory(() -> pooledHttpRequestFactory.create("lpgUi"))
                 .interceptors(restTemplateOAuthInterceptor)
                 .build();
         return new HttpClient(restTemplate);
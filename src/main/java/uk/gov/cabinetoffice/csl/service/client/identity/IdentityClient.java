@@ -8,6 +8,7 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.RequestEntity;
 import org.springframework.stereotype.Component;
 import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
+import uk.gov.cabinetoffice.csl.service.auth2.LocalServiceTokenService;
 import uk.gov.cabinetoffice.csl.service.auth2.OAuthToken;
 import uk.gov.cabinetoffice.csl.exception.InternalAuthErrorException;
 
@@ -21,18 +22,32 @@ public class IdentityClient implements IIdentityClient {
 
     private final IHttpClient client;
     private final Clock clock;
+    private final LocalServiceTokenService localServiceTokenService;
 
     @Value("${oauth2.tokenUrl}")
     private String tokenUrl;
 
-    public IdentityClient(@Qualifier("identityHttpClient") IHttpClient client, Clock clock) {
+    @Value("${oauth2.serviceToken.mode}")
+    private String serviceTokenMode;
+
+    public IdentityClient(@Qualifier("identityHttpClient") IHttpClient client, Clock clock,
+                          LocalServiceTokenService localServiceTokenService) {
         this.client = client;
         this.clock = clock;
+        this.localServiceTokenService = localServiceTokenService;
     }
 
     @Override
     @Cacheable("serviceToken")
     public OAuthToken getServiceToken() {
+        if ("local".equalsIgnoreCase(serviceTokenMode)) {
+            log.debug("Issuing service token locally");
+            OAuthToken oAuthToken = localServiceTokenService.getServiceToken();
+            if (oAuthToken != null) {
+                oAuthToken.setExpiryDateTime(now(clock).plusSeconds(oAuthToken.getExpiresIn()));
+                return oAuthToken;
+            }
+        }
         log.debug("Getting service token from identity service");
         String url = String.format("%s?grant_type=client_credentials", tokenUrl);
         RequestEntity<Void> request = RequestEntity.post(url).build();
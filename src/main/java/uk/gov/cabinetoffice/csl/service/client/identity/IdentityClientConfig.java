@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import uk.gov.cabinetoffice.csl.service.client.HttpClient;
 import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
+import uk.gov.cabinetoffice.csl.service.client.PooledHttpRequestFactory;
 
 @Configuration
 public class IdentityClientConfig {
@@ -21,9 +22,10 @@ public class IdentityClientConfig {
     private String identityClientSecret;
 
     @Bean(name = "identityHttpClient")
-    IHttpClient identityClient(RestTemplateBuilder restTemplateBuilder) {
+    IHttpClient identityClient(RestTemplateBuilder restTemplateBuilder, PooledHttpRequestFactory pooledHttpRequestFactory) {
         RestTemplate restTemplate = restTemplateBuilder
                 .rootUri(identityBaseUrl)
+                .requestFactory(() -> pooledHttpRequestFactory.create("identity"))
                 .basicAuthentication(identityClientId, identityClientSecret)
                 .build();
         return new HttpClient(restTemplate);
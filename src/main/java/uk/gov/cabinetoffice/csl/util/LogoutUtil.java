@@ -6,7 +6,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import uk.gov.cabinetoffice.csl.repository.Oauth2AuthorizationRepository;
+import uk.gov.cabinetoffice.csl.service.auth2.Oauth2AuthorizationLogoutService;
 import uk.gov.cabinetoffice.csl.service.auth2.IUserAuthService;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -17,7 +17,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 public class LogoutUtil {
 
     private final IUserAuthService userAuthService;
-    private final Oauth2AuthorizationRepository oauth2AuthorizationRepository;
+    private final Oauth2AuthorizationLogoutService oauth2AuthorizationLogoutService;
 
     public void logout(HttpServletRequest request, HttpServletResponse response) {
         if (request.getCookies() != null) {
@@ -33,8 +33,7 @@ public class LogoutUtil {
         String uid = userAuthService.getUid();
         log.debug("LogoutUtil.uid: {}", uid);
         if (isNotBlank(uid)) {
-            Long n = oauth2AuthorizationRepository.deleteByPrincipalName(uid);
-            log.debug("LogoutUtil: {} Oauth2Authorization entries deleted from DB for principal_name {}", n, uid);
+            oauth2AuthorizationLogoutService.removeAuthorizations(uid);
         }
     }
 }
@@ -0,0 +1,23 @@
+package uk.gov.cabinetoffice.csl.util;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.cabinetoffice.csl.exception.GenericServerException;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Slf4j
+public class TokenHashUtils {
+
+    public static String getSha256Hash(String tokenValue) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(tokenValue.getBytes(UTF_8)));
+        } catch (Exception e) {
+            log.error("TokenHashUtils.getSha256Hash: Error has occurred", e);
+            throw new GenericServerException("System error");
+        }
+    }
+}
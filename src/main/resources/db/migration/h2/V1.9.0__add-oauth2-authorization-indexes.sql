@@ -0,0 +1,13 @@
+CREATE INDEX oauth2_authorization_principal_name_idx ON oauth2_authorization (principal_name);
+
+ALTER TABLE oauth2_authorization ADD COLUMN expires_at datetime GENERATED ALWAYS AS (
+        CASE WHEN COALESCE(access_token_expires_at, refresh_token_expires_at, authorization_code_expires_at,
+                       oidc_id_token_expires_at, user_code_expires_at, device_code_expires_at) IS NULL THEN NULL
+             ELSE GREATEST(COALESCE(access_token_expires_at, TIMESTAMP '1000-01-01 00:00:00'),
+                           COALESCE(refresh_token_expires_at, TIMESTAMP '1000-01-01 00:00:00'),
+                           COALESCE(authorization_code_expires_at, TIMESTAMP '1000-01-01 00:00:00'),
+                           COALESCE(oidc_id_token_expires_at, TIMESTAMP '1000-01-01 00:00:00'),
+                           COALESCE(user_code_expires_at, TIMESTAMP '1000-01-01 00:00:00'),
+                           COALESCE(device_code_expires_at, TIMESTAMP '1000-01-01 00:00:00')) END);
+
+CREATE INDEX oauth2_authorization_expires_at_idx ON oauth2_authorization (expires_at);
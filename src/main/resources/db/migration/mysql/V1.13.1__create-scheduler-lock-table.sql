@@ -0,0 +1,8 @@
+CREATE TABLE scheduler_lock
+(
+    name            varchar(64)     NOT NULL,
+    locked_at       datetime        NOT NULL,
+    locked_until    datetime        NOT NULL,
+    locked_by       varchar(100)    NOT NULL,
+    PRIMARY KEY (name)
+);
@@ -0,0 +1,11 @@
+CREATE TABLE signing_key
+(
+    kid             varchar(100)    NOT NULL,
+    algorithm       varchar(10)     NOT NULL,
+    private_key     varchar(4000)   NOT NULL,
+    created_at      datetime        NOT NULL,
+    activates_at    datetime        NOT NULL,
+    deactivates_at  datetime        NOT NULL,
+    expires_at      datetime        NOT NULL,
+    PRIMARY KEY (kid)
+);
@@ -0,0 +1,11 @@
+CREATE INDEX identity_agency_token_uid_idx ON identity (agency_token_uid);
+
+CREATE TABLE agency_token_capacity
+(
+    agency_token_uid    char(36)    NOT NULL,
+    spaces_used         bigint      NOT NULL,
+    PRIMARY KEY (agency_token_uid)
+);
+
+INSERT INTO agency_token_capacity (agency_token_uid, spaces_used)
+SELECT agency_token_uid, COUNT(*) FROM identity WHERE agency_token_uid IS NOT NULL GROUP BY agency_token_uid;
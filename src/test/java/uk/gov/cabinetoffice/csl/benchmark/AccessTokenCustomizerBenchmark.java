@@ -0,0 +1,116 @@
+package uk.gov.cabinetoffice.csl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
+import uk.gov.cabinetoffice.csl.domain.Identity;
+import uk.gov.cabinetoffice.csl.domain.Role;
+import uk.gov.cabinetoffice.csl.dto.IdentityDetails;
+import uk.gov.cabinetoffice.csl.service.auth2.AccessTokenCustomizer;
+import uk.gov.cabinetoffice.csl.service.auth2.SigningKeyService;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.security.oauth2.jose.jws.MacAlgorithm.HS256;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+
+// Compares the per-token cost of the previous inline token customizer with AccessTokenCustomizer.
+// Run from the IDE or with the test classpath, e.g. after mvn test-compile:
+// java -cp target/test-classes:target/classes:<test classpath> \
+//   uk.gov.cabinetoffice.csl.benchmark.AccessTokenCustomizerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessTokenCustomizerBenchmark {
+
+    private RegisteredClient registeredClient;
+    private Authentication principal;
+    private OAuth2TokenCustomizer<JwtEncodingContext> previousCustomizer;
+    private OAuth2TokenCustomizer<JwtEncodingContext> accessTokenCustomizer;
+
+    @Setup
+    public void setUp() {
+        registeredClient = RegisteredClient.withId("registeredClientId")
+                .clientId("clientId")
+                .clientSecret("secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("http://localhost/callback")
+                .scopes(scopes -> scopes.addAll(Set.of("read", "write", "openid", "profile")))
+                .build();
+        Identity identity = new Identity();
+        identity.setUid("uid");
+        identity.setEmail("learner@example.com");
+        identity.setRoles(Set.of(new Role("LEARNER", null), new Role("ORGANISATION_REPORTER", null)));
+        IdentityDetails identityDetails = new IdentityDetails(identity);
+        principal = new UsernamePasswordAuthenticationToken(identityDetails, null, identityDetails.getAuthorities());
+        previousCustomizer = previousCustomizer();
+        accessTokenCustomizer = new AccessTokenCustomizer(mock(SigningKeyService.class));
+    }
+
+    @Benchmark
+    public JwtClaimsSet.Builder previous() {
+        return customize(previousCustomizer);
+    }
+
+    @Benchmark
+    public JwtClaimsSet.Builder precomputed() {
+        return customize(accessTokenCustomizer);
+    }
+
+    private JwtClaimsSet.Builder customize(OAuth2TokenCustomizer<JwtEncodingContext> customizer) {
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder();
+        customizer.customize(JwtEncodingContext.with(JwsHeader.with(HS256), claims)
+                .registeredClient(registeredClient)
+                .principal(principal)
+                .tokenType(ACCESS_TOKEN)
+                .build());
+        return claims;
+    }
+
+    // The customizer as it was declared in SecurityConfig, for clients signing with HS256
+    private static OAuth2TokenCustomizer<JwtEncodingContext> previousCustomizer() {
+        return context -> {
+            RegisteredClient client = context.getRegisteredClient();
+            context.getJwsHeader().algorithm(HS256);
+            context.getJwsHeader().type("JWT");
+            context.getClaims().claim("client_id", client.getClientId());
+            context.getClaims().claim(JwtClaimNames.JTI, UUID.randomUUID().toString());
+            context.getClaims().claim("scopes", client.getScopes());
+            Authentication principal = context.getPrincipal();
+            context.getClaims().claim("user_name", principal.getName());
+            Set<String> authorities = principal.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.toSet());
+            String email = ((IdentityDetails) principal.getPrincipal()).getIdentity().getEmail();
+            context.getClaims().claim("email", email);
+            context.getClaims().claim("authorities", authorities);
+            context.getClaims().audience(new ArrayList<>());
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccessTokenCustomizerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+}
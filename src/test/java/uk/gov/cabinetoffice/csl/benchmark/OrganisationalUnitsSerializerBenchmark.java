@@ -0,0 +1,98 @@
+package uk.gov.cabinetoffice.csl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+import uk.gov.cabinetoffice.csl.service.client.csrs.CsrsServiceDataTransformer;
+import uk.gov.cabinetoffice.csl.service.client.csrs.OrganisationalUnitsRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares the organisations cache payload written with JDK serialization (the previous format) and with
+// OrganisationalUnitsRedisSerializer. The payload sizes are printed once per trial. Run like
+// AccessTokenCustomizerBenchmark:
+// java -cp target/test-classes:target/classes:<test classpath> \
+//   uk.gov.cabinetoffice.csl.benchmark.OrganisationalUnitsSerializerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrganisationalUnitsSerializerBenchmark {
+
+    @Param({"100x4", "250x8"})
+    private String departmentsByDepth;
+
+    private final RedisSerializer<Object> jdkSerializer = new JdkSerializationRedisSerializer();
+    private final RedisSerializer<Object> compactSerializer = new OrganisationalUnitsRedisSerializer();
+    private byte[] jdkPayload;
+    private byte[] compactPayload;
+
+    @Setup
+    public void setUp() {
+        String[] dimensions = departmentsByDepth.split("x");
+        List<OrganisationalUnit> organisationalUnits = createOrganisations(Integer.parseInt(dimensions[0]),
+                Integer.parseInt(dimensions[1]));
+        jdkPayload = jdkSerializer.serialize(organisationalUnits);
+        compactPayload = compactSerializer.serialize(organisationalUnits);
+        System.out.printf("%n%s: %d units, jdk %d bytes, compact %d bytes%n", departmentsByDepth,
+                organisationalUnits.size(), jdkPayload.length, compactPayload.length);
+    }
+
+    @Benchmark
+    public Object jdkDecode() {
+        return jdkSerializer.deserialize(jdkPayload);
+    }
+
+    @Benchmark
+    public Object compactDecode() {
+        return compactSerializer.deserialize(compactPayload);
+    }
+
+    private static List<OrganisationalUnit> createOrganisations(int departments, int depth) {
+        List<OrganisationalUnit> organisationalUnits = new ArrayList<>();
+        int id = 1;
+        for (int department = 0; department < departments; department++) {
+            Integer parentId = null;
+            String formattedName = "Department " + department;
+            for (int level = 0; level < depth; level++) {
+                for (int sibling = 0; sibling < (level == 0 ? 1 : 2); sibling++) {
+                    OrganisationalUnit organisationalUnit = new OrganisationalUnit();
+                    organisationalUnit.setId(id);
+                    organisationalUnit.setParentId(parentId);
+                    organisationalUnit.setCode("ORG" + id);
+                    organisationalUnit.setName("Unit " + id);
+                    organisationalUnit.setFormattedName(formattedName + " | " + sibling);
+                    organisationalUnit.setHref("/organisationalUnits/" + id);
+                    organisationalUnit.setDomains(List.of(new Domain((long) id, "unit" + id + ".gov.uk")));
+                    if (level == 0 && department % 3 == 0) {
+                        organisationalUnit.setAgencyToken(new AgencyToken("uid" + department, "token" + department,
+                                100L, List.of(new Domain((long) department, "agency" + department + ".gov.uk"))));
+                    }
+                    organisationalUnits.add(organisationalUnit);
+                    id++;
+                }
+                parentId = id - 1;
+                formattedName = formattedName + " | Unit " + parentId;
+            }
+        }
+        return new CsrsServiceDataTransformer().transformOrganisations(organisationalUnits);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrganisationalUnitsSerializerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+}
@@ -12,9 +12,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.UidList;
 import uk.gov.cabinetoffice.csl.service.AgencyTokenCapacityService;
 import uk.gov.cabinetoffice.csl.util.WithMockCustomUser;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
@@ -55,6 +58,34 @@ public class AgencyTokenControllerTest {
                 .andExpect(content().json(gson.toJson(agencyToken)));
     }
 
+    @Test
+    public void getSpacesUsedForAgencyTokens() throws Exception {
+        Map<String, Long> spacesUsed = Map.of(UID, 100L, "UID2", 0L);
+
+        when(agencyTokenCapacityService.getSpacesUsedByAgencyTokens(List.of(UID, "UID2"))).thenReturn(spacesUsed);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.post("/agency/usage")
+                        .with(csrf())
+                        .contentType(APPLICATION_JSON)
+                        .content(gson.toJson(new UidList(List.of(UID, "UID2"))))
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(gson.toJson(spacesUsed)));
+    }
+
+    @Test
+    public void getSpacesUsedForAgencyTokens_rejectsEmptyUids() throws Exception {
+        mockMvc.perform(
+                MockMvcRequestBuilders.post("/agency/usage")
+                        .with(csrf())
+                        .contentType(APPLICATION_JSON)
+                        .content(gson.toJson(new UidList(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verify(agencyTokenCapacityService, never()).getSpacesUsedByAgencyTokens(any());
+    }
+
     @Test
     public void deleteAgencyToken_callsAgencyTokenCapacityServiceDeleteAgencyTokenOk() throws Exception {
         String agencyTokenUid = UUID.randomUUID().toString();
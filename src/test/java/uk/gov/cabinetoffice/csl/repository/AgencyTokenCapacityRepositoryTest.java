@@ -0,0 +1,64 @@
+package uk.gov.cabinetoffice.csl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.gov.cabinetoffice.csl.util.TestUtil.createIdentity;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles("no-redis")
+public class AgencyTokenCapacityRepositoryTest {
+
+    @Autowired
+    private AgencyTokenCapacityRepository agencyTokenCapacityRepository;
+
+    @Autowired
+    private IdentityRepository identityRepository;
+
+    @Test
+    public void insertIfAbsent_shouldSeedCounterFromIdentities() {
+        String agencyTokenUid = UUID.randomUUID().toString();
+        identityRepository.saveAndFlush(createIdentity(agencyTokenUid));
+        identityRepository.saveAndFlush(createIdentity(agencyTokenUid));
+        identityRepository.saveAndFlush(createIdentity(UUID.randomUUID().toString()));
+
+        assertEquals(1, agencyTokenCapacityRepository.insertIfAbsent(agencyTokenUid));
+        assertEquals(0, agencyTokenCapacityRepository.insertIfAbsent(agencyTokenUid));
+
+        assertEquals(2L, getSpacesUsed(agencyTokenUid));
+    }
+
+    @Test
+    public void addSpacesUsed_shouldUpdateExistingCounterOnly() {
+        String agencyTokenUid = UUID.randomUUID().toString();
+        agencyTokenCapacityRepository.save(new AgencyTokenCapacity(agencyTokenUid, 5L));
+
+        assertEquals(1, agencyTokenCapacityRepository.addSpacesUsed(agencyTokenUid, 1));
+        assertEquals(1, agencyTokenCapacityRepository.addSpacesUsed(agencyTokenUid, -2));
+        assertEquals(0, agencyTokenCapacityRepository.addSpacesUsed(UUID.randomUUID().toString(), 1));
+
+        assertEquals(4L, getSpacesUsed(agencyTokenUid));
+    }
+
+    @Test
+    public void removeAgencyToken_shouldDeleteCounter() {
+        String agencyTokenUid = UUID.randomUUID().toString();
+        agencyTokenCapacityRepository.save(new AgencyTokenCapacity(agencyTokenUid, 5L));
+
+        agencyTokenCapacityRepository.removeAgencyToken(agencyTokenUid);
+
+        assertTrue(agencyTokenCapacityRepository.findSpacesUsed(agencyTokenUid).isEmpty());
+    }
+
+    private Long getSpacesUsed(String agencyTokenUid) {
+        return agencyTokenCapacityRepository.findSpacesUsed(agencyTokenUid).orElseThrow();
+    }
+}
@@ -5,13 +5,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity;
 import uk.gov.cabinetoffice.csl.domain.Identity;
 import uk.gov.cabinetoffice.csl.dto.IdentityDto;
 import uk.gov.cabinetoffice.csl.util.TestUtil;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -115,6 +118,24 @@ public class IdentityRepositoryTest {
         assertEquals(otherNonAgencyIdentity.toString(), postUpdateOtherNonAgencyIdentity.toString());
     }
 
+    @Test
+    public void countByAgencyTokenUids_shouldCountIdentitiesPerAgencyToken() {
+        String agencyTokenUid1 = UUID.randomUUID().toString();
+        String agencyTokenUid2 = UUID.randomUUID().toString();
+
+        identityRepository.saveAndFlush(createIdentity(agencyTokenUid1));
+        identityRepository.saveAndFlush(createIdentity(agencyTokenUid1));
+        identityRepository.saveAndFlush(createIdentity(agencyTokenUid2));
+        identityRepository.saveAndFlush(createIdentity(UUID.randomUUID().toString()));
+
+        Map<String, Long> result = identityRepository.countByAgencyTokenUids(
+                        List.of(agencyTokenUid1, agencyTokenUid2, UUID.randomUUID().toString()))
+                .stream()
+                .collect(Collectors.toMap(AgencyTokenCapacity::getAgencyTokenUid, AgencyTokenCapacity::getSpacesUsed));
+
+        assertEquals(Map.of(agencyTokenUid1, 2L, agencyTokenUid2, 1L), result);
+    }
+
     @Test
     public void findIdentitiesByUIDsNormalised_shouldReturnIdentitiesForGivenUIDs() {
 
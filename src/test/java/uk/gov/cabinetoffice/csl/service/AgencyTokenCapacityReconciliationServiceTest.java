@@ -0,0 +1,83 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.cabinetoffice.csl.repository.IdentityRepository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.gov.cabinetoffice.csl.util.TestUtil.createIdentity;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles("no-redis")
+public class AgencyTokenCapacityReconciliationServiceTest {
+
+    private static final String DRIFTED = "11111111-1111-1111-1111-111111111111";
+    private static final String CORRECT = "22222222-2222-2222-2222-222222222222";
+    private static final String MISSING = "33333333-3333-3333-3333-333333333333";
+    private static final String UNUSED = "44444444-4444-4444-4444-444444444444";
+
+    @Autowired
+    private AgencyTokenCapacityReconciliationService agencyTokenCapacityReconciliationService;
+
+    @Autowired
+    private IdentityRepository identityRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM agency_token_capacity");
+    }
+
+    @Test
+    public void shouldCorrectDriftedCountersAndCreateMissingOnes() {
+        identityRepository.saveAndFlush(createIdentity(DRIFTED));
+        identityRepository.saveAndFlush(createIdentity(DRIFTED));
+        identityRepository.saveAndFlush(createIdentity(CORRECT));
+        identityRepository.saveAndFlush(createIdentity(MISSING));
+        insertCounter(DRIFTED, 5L);
+        insertCounter(CORRECT, 1L);
+        insertCounter(UNUSED, 3L);
+
+        assertEquals(3, agencyTokenCapacityReconciliationService.reconcile());
+
+        assertEquals(2L, getSpacesUsed(DRIFTED));
+        assertEquals(1L, getSpacesUsed(CORRECT));
+        assertEquals(1L, getSpacesUsed(MISSING));
+        assertEquals(0L, getSpacesUsed(UNUSED));
+    }
+
+    @Test
+    public void shouldNotReconcileOnScheduleWhileAnotherNodeHoldsTheLock() {
+        identityRepository.saveAndFlush(createIdentity(DRIFTED));
+        insertCounter(DRIFTED, 5L);
+        jdbcTemplate.update("DELETE FROM scheduler_lock");
+        jdbcTemplate.update("INSERT INTO scheduler_lock (name, locked_at, locked_until, locked_by) VALUES (?, ?, ?, ?)",
+                "agency-token-capacity-reconciliation", Timestamp.from(Instant.now()),
+                Timestamp.from(Instant.now().plusSeconds(600)), "otherNode");
+
+        agencyTokenCapacityReconciliationService.scheduledReconciliation();
+
+        assertEquals(5L, getSpacesUsed(DRIFTED));
+    }
+
+    private void insertCounter(String agencyTokenUid, long spacesUsed) {
+        jdbcTemplate.update("INSERT INTO agency_token_capacity (agency_token_uid, spaces_used) VALUES (?, ?)",
+                agencyTokenUid, spacesUsed);
+    }
+
+    private Long getSpacesUsed(String agencyTokenUid) {
+        return jdbcTemplate.queryForObject("SELECT spaces_used FROM agency_token_capacity WHERE agency_token_uid = ?",
+                Long.class, agencyTokenUid);
+    }
+}
@@ -0,0 +1,97 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("no-redis")
+public class AgencyTokenCapacityReservationTest {
+
+    private final String agencyTokenUid = UUID.randomUUID().toString();
+
+    @Autowired
+    private AgencyTokenCapacityService agencyTokenCapacityService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM agency_token_capacity WHERE agency_token_uid = ?", agencyTokenUid);
+    }
+
+    @Test
+    public void shouldNotReserveMoreSpacesThanCapacityConcurrently() throws Exception {
+        AgencyToken agencyToken = createAgencyToken(3L);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> reservations = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                reservations.add(executorService.submit(() -> {
+                    start.await();
+                    return reserveSpace(agencyToken);
+                }));
+            }
+            start.countDown();
+            int reserved = 0;
+            for (Future<Boolean> reservation : reservations) {
+                if (reservation.get(30, TimeUnit.SECONDS)) {
+                    reserved++;
+                }
+            }
+            assertEquals(3, reserved);
+            assertEquals(3L, getSpacesUsed());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldReleaseSpaceWhenTransactionRollsBack() {
+        AgencyToken agencyToken = createAgencyToken(1L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(agencyTokenCapacityService.reserveSpace(agencyToken));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0L, getSpacesUsed());
+        assertEquals(Boolean.TRUE, reserveSpace(agencyToken));
+        assertEquals(Boolean.FALSE, reserveSpace(agencyToken));
+    }
+
+    private Boolean reserveSpace(AgencyToken agencyToken) {
+        return transactionTemplate.execute(status -> agencyTokenCapacityService.reserveSpace(agencyToken));
+    }
+
+    private AgencyToken createAgencyToken(long capacity) {
+        jdbcTemplate.update("INSERT INTO agency_token_capacity (agency_token_uid, spaces_used) VALUES (?, 0)",
+                agencyTokenUid);
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(agencyTokenUid);
+        agencyToken.setCapacity(capacity);
+        return agencyToken;
+    }
+
+    private Long getSpacesUsed() {
+        return jdbcTemplate.queryForObject("SELECT spaces_used FROM agency_token_capacity WHERE agency_token_uid = ?",
+                Long.class, agencyTokenUid);
+    }
+}
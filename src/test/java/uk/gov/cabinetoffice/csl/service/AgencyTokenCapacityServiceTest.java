@@ -4,10 +4,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import uk.gov.cabinetoffice.csl.domain.AgencyTokenCapacity;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.repository.AgencyTokenCapacityRepository;
 import uk.gov.cabinetoffice.csl.repository.IdentityRepository;
 
-import java.util.UUID;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +22,9 @@ public class AgencyTokenCapacityServiceTest {
     @Mock
     private IdentityRepository identityRepository;
 
+    @Mock
+    private AgencyTokenCapacityRepository agencyTokenCapacityRepository;
+
     @InjectMocks
     private AgencyTokenCapacityService agencyTokenCapacityService;
 
@@ -90,5 +95,119 @@ public class AgencyTokenCapacityServiceTest {
         String agencyToken = UUID.randomUUID().toString();
         agencyTokenCapacityService.deleteAgencyToken(agencyToken);
         verify(identityRepository, times(1)).removeAgencyToken(agencyToken);
+        verify(agencyTokenCapacityRepository, times(1)).removeAgencyToken(agencyToken);
+    }
+
+    @Test
+    public void shouldUseCounterWhenPresent() {
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(UID);
+        agencyToken.setCapacity(100L);
+
+        when(agencyTokenCapacityRepository.findSpacesUsed(UID)).thenReturn(Optional.of(100L));
+
+        assertFalse(agencyTokenCapacityService.hasSpaceAvailable(agencyToken));
+        verify(identityRepository, never()).countByAgencyTokenUid(UID);
+    }
+
+    @Test
+    public void updateSpacesUsed_shouldMoveSpaceBetweenAgencyTokens() {
+        when(agencyTokenCapacityRepository.addSpacesUsed("NEW", 1)).thenReturn(1);
+
+        agencyTokenCapacityService.updateSpacesUsed(UID, "NEW");
+
+        verify(agencyTokenCapacityRepository).addSpacesUsed(UID, -1);
+        verify(agencyTokenCapacityRepository).addSpacesUsed("NEW", 1);
+        verify(agencyTokenCapacityRepository, never()).insertIfAbsent(anyString());
+    }
+
+    @Test
+    public void updateSpacesUsed_shouldSeedMissingCounter() {
+        when(agencyTokenCapacityRepository.addSpacesUsed(UID, 1)).thenReturn(0, 1);
+
+        agencyTokenCapacityService.updateSpacesUsed(null, UID);
+
+        verify(agencyTokenCapacityRepository).insertIfAbsent(UID);
+        verify(agencyTokenCapacityRepository, times(2)).addSpacesUsed(UID, 1);
+    }
+
+    @Test
+    public void updateSpacesUsed_shouldIgnoreUnchangedAgencyToken() {
+        agencyTokenCapacityService.updateSpacesUsed(UID, UID);
+        agencyTokenCapacityService.updateSpacesUsed(null, null);
+
+        verifyNoInteractions(agencyTokenCapacityRepository);
+    }
+
+    @Test
+    public void reserveSpace_shouldClaimSpaceWhenAvailable() {
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(UID);
+        agencyToken.setCapacity(100L);
+
+        when(agencyTokenCapacityRepository.reserveSpace(UID, 100L)).thenReturn(1);
+
+        assertTrue(agencyTokenCapacityService.reserveSpace(agencyToken));
+        verify(agencyTokenCapacityRepository, never()).insertIfAbsent(anyString());
+    }
+
+    @Test
+    public void reserveSpace_shouldSeedMissingCounterAndRetry() {
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(UID);
+        agencyToken.setCapacity(100L);
+
+        when(agencyTokenCapacityRepository.reserveSpace(UID, 100L)).thenReturn(0, 1);
+        when(agencyTokenCapacityRepository.insertIfAbsent(UID)).thenReturn(1);
+
+        assertTrue(agencyTokenCapacityService.reserveSpace(agencyToken));
+        verify(agencyTokenCapacityRepository, times(2)).reserveSpace(UID, 100L);
+    }
+
+    @Test
+    public void reserveSpace_shouldFailWhenNoSpaceAvailable() {
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(UID);
+        agencyToken.setCapacity(100L);
+
+        when(agencyTokenCapacityRepository.reserveSpace(UID, 100L)).thenReturn(0);
+        when(agencyTokenCapacityRepository.insertIfAbsent(UID)).thenReturn(0);
+
+        assertFalse(agencyTokenCapacityService.reserveSpace(agencyToken));
+        verify(agencyTokenCapacityRepository, times(2)).reserveSpace(UID, 100L);
+    }
+
+    @Test
+    public void reserveSpace_shouldRetryWhenCounterWasCreatedConcurrently() {
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid(UID);
+        agencyToken.setCapacity(100L);
+
+        when(agencyTokenCapacityRepository.reserveSpace(UID, 100L)).thenReturn(0, 1);
+        when(agencyTokenCapacityRepository.insertIfAbsent(UID)).thenReturn(0);
+
+        assertTrue(agencyTokenCapacityService.reserveSpace(agencyToken));
+        verify(agencyTokenCapacityRepository, times(2)).reserveSpace(UID, 100L);
+    }
+
+    @Test
+    public void shouldReturnSpacesUsedByAgencyTokensFromCountersAndIdentities() {
+        when(agencyTokenCapacityRepository.findAllById(Set.of(UID, "UID2", "UID3")))
+                .thenReturn(List.of(new AgencyTokenCapacity(UID, 10L)));
+        when(identityRepository.countByAgencyTokenUids(Set.of("UID2", "UID3")))
+                .thenReturn(List.of(new AgencyTokenCapacity("UID2", 2L)));
+
+        Map<String, Long> spacesUsed = agencyTokenCapacityService.getSpacesUsedByAgencyTokens(List.of(UID, "UID2", "UID3"));
+
+        assertEquals(Map.of(UID, 10L, "UID2", 2L, "UID3", 0L), spacesUsed);
+    }
+
+    @Test
+    public void shouldNotCountIdentitiesWhenAllAgencyTokensHaveCounters() {
+        when(agencyTokenCapacityRepository.findAllById(Set.of(UID)))
+                .thenReturn(List.of(new AgencyTokenCapacity(UID, 10L)));
+
+        assertEquals(Map.of(UID, 10L), agencyTokenCapacityService.getSpacesUsedByAgencyTokens(List.of(UID, UID)));
+        verify(identityRepository, never()).countByAgencyTokenUids(any());
     }
 }
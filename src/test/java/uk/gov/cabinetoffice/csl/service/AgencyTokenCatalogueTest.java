@@ -0,0 +1,130 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+import uk.gov.cabinetoffice.csl.service.client.csrs.CsrsServiceDataTransformer;
+import uk.gov.cabinetoffice.csl.service.client.csrs.ICivilServantRegistryClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AgencyTokenCatalogueTest {
+
+    private final Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    private ICivilServantRegistryClient civilServantRegistryClient;
+    private Clock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private AgencyTokenCatalogue agencyTokenCatalogue;
+
+    @BeforeEach
+    public void setUp() {
+        civilServantRegistryClient = mock(ICivilServantRegistryClient.class);
+        when(civilServantRegistryClient.getOrganisationsFetchedAt()).thenReturn(now);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(now);
+        meterRegistry = new SimpleMeterRegistry();
+        agencyTokenCatalogue = new AgencyTokenCatalogue(civilServantRegistryClient, meterRegistry, clock, true, 300000);
+    }
+
+    @Test
+    public void shouldNotBeAvailableBeforeFirstSync() {
+        assertFalse(agencyTokenCatalogue.isAvailable());
+        assertFalse(agencyTokenCatalogue.isDomainInAnAgencyToken("agency.gov.uk"));
+    }
+
+    @Test
+    public void shouldAnswerLookupsForAgencyTokensAppliedToDescendants() {
+        when(civilServantRegistryClient.getAllOrganisations()).thenReturn(createOrganisations("token1"));
+
+        agencyTokenCatalogue.sync();
+
+        assertTrue(agencyTokenCatalogue.isAvailable());
+        assertTrue(agencyTokenCatalogue.isDomainInAnAgencyToken("Agency.gov.uk"));
+        assertFalse(agencyTokenCatalogue.isDomainInAnAgencyToken("other.gov.uk"));
+        assertTrue(agencyTokenCatalogue.isDomainInAnAgencyTokenWithOrg("agency.gov.uk", "CHILD"));
+        assertFalse(agencyTokenCatalogue.isDomainInAnAgencyTokenWithOrg("agency.gov.uk", "OTHER"));
+        assertEquals("uid1", agencyTokenCatalogue.getAgencyToken("agency.gov.uk", "token1", "CHILD")
+                .map(AgencyToken::getUid).orElse(null));
+        assertTrue(agencyTokenCatalogue.getAgencyToken("agency.gov.uk", "wrong", "CHILD").isEmpty());
+        assertTrue(agencyTokenCatalogue.isAgencyTokenUidValidForDomain("uid1", "agency.gov.uk"));
+        assertFalse(agencyTokenCatalogue.isAgencyTokenUidValidForDomain("uid1", "other.gov.uk"));
+    }
+
+    @Test
+    public void shouldKeepUnchangedTokensAndCountChanges() {
+        when(civilServantRegistryClient.getAllOrganisations())
+                .thenReturn(createOrganisations("token1"))
+                .thenReturn(createOrganisations("token1"))
+                .thenReturn(createOrganisations("token2"));
+
+        agencyTokenCatalogue.sync();
+        AgencyToken first = agencyTokenCatalogue.getAgencyToken("agency.gov.uk", "token1", "PARENT").orElseThrow();
+        agencyTokenCatalogue.sync();
+        AgencyToken second = agencyTokenCatalogue.getAgencyToken("agency.gov.uk", "token1", "PARENT").orElseThrow();
+        agencyTokenCatalogue.sync();
+
+        assertSame(first, second);
+        assertTrue(agencyTokenCatalogue.getAgencyToken("agency.gov.uk", "token2", "PARENT").isPresent());
+        assertEquals(1, meterRegistry.counter("csrs.agency_token.catalogue.changes", "change", "added").count());
+        assertEquals(1, meterRegistry.counter("csrs.agency_token.catalogue.changes", "change", "updated").count());
+        assertEquals(3, meterRegistry.timer("csrs.agency_token.catalogue.sync").count());
+    }
+
+    @Test
+    public void shouldStopBeingUsedOnceTooOld() {
+        when(civilServantRegistryClient.getAllOrganisations()).thenReturn(createOrganisations("token1"));
+        agencyTokenCatalogue.sync();
+
+        when(clock.instant()).thenReturn(now.plusSeconds(301));
+
+        assertFalse(agencyTokenCatalogue.isAvailable());
+        assertEquals(301, meterRegistry.get("csrs.agency_token.catalogue.age").gauge().value());
+    }
+
+    @Test
+    public void shouldNotBeAvailableWhenSyncedFromOldOrganisations() {
+        when(civilServantRegistryClient.getAllOrganisations()).thenReturn(createOrganisations("token1"));
+        when(civilServantRegistryClient.getOrganisationsFetchedAt()).thenReturn(now.minusSeconds(3600));
+
+        agencyTokenCatalogue.sync();
+
+        assertFalse(agencyTokenCatalogue.isAvailable());
+        assertEquals(3600, meterRegistry.get("csrs.agency_token.catalogue.age").gauge().value());
+    }
+
+    @Test
+    public void shouldNotBeAvailableWhenOrganisationsFetchTimeIsUnknown() {
+        when(civilServantRegistryClient.getAllOrganisations()).thenReturn(createOrganisations("token1"));
+        when(civilServantRegistryClient.getOrganisationsFetchedAt()).thenReturn(null);
+
+        agencyTokenCatalogue.sync();
+
+        assertFalse(agencyTokenCatalogue.isAvailable());
+    }
+
+    private List<OrganisationalUnit> createOrganisations(String token) {
+        OrganisationalUnit parent = createOrganisationalUnit(1, null, "PARENT");
+        parent.setAgencyToken(new AgencyToken("uid1", token, 10L, List.of(new Domain(1L, "agency.gov.uk"))));
+        return new CsrsServiceDataTransformer().transformOrganisations(List.of(parent,
+                createOrganisationalUnit(2, 1, "CHILD"), createOrganisationalUnit(3, null, "OTHER")));
+    }
+
+    private OrganisationalUnit createOrganisationalUnit(int id, Integer parentId, String code) {
+        OrganisationalUnit organisationalUnit = new OrganisationalUnit();
+        organisationalUnit.setId(id);
+        organisationalUnit.setParentId(parentId);
+        organisationalUnit.setCode(code);
+        organisationalUnit.setFormattedName(code);
+        return organisationalUnit;
+    }
+}
@@ -0,0 +1,74 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.cabinetoffice.csl.exception.GenericServerException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CsrsCacheRefreshServiceTest {
+
+    private CsrsService csrsService;
+    private SchedulerLock schedulerLock;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        csrsService = mock(CsrsService.class);
+        schedulerLock = mock(SchedulerLock.class);
+        when(schedulerLock.runExclusively(any(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return true;
+        });
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void shouldRefreshBothCaches() {
+        createCsrsCacheRefreshService(true).scheduledRefresh();
+
+        verify(schedulerLock).runExclusively(eq("csrs-cache-refresh"), eq(Duration.ofMinutes(10)),
+                eq(Duration.ofMillis(9000)), any());
+        verify(csrsService).refreshOrganisationsCache();
+        verify(csrsService).refreshAllowListDomainCache();
+        assertEquals(1, meterRegistry.timer("csrs.cache.refresh", "cache", "organisations", "outcome", "success")
+                .count());
+    }
+
+    @Test
+    public void shouldRefreshAllowListDomainsWhenOrganisationsRefreshFails() {
+        doThrow(new GenericServerException("System error")).when(csrsService).refreshOrganisationsCache();
+
+        createCsrsCacheRefreshService(true).refreshCaches();
+
+        verify(csrsService).refreshAllowListDomainCache();
+        assertEquals(1, meterRegistry.timer("csrs.cache.refresh", "cache", "organisations", "outcome", "failure")
+                .count());
+    }
+
+    @Test
+    public void shouldNotRefreshWhenDisabled() {
+        createCsrsCacheRefreshService(false).scheduledRefresh();
+
+        verifyNoInteractions(csrsService, schedulerLock);
+    }
+
+    @Test
+    public void shouldNotRefreshWhenAnotherNodeHoldsTheLock() {
+        doReturn(false).when(schedulerLock).runExclusively(any(), any(), any(), any());
+
+        createCsrsCacheRefreshService(true).scheduledRefresh();
+
+        verifyNoInteractions(csrsService);
+    }
+
+    private CsrsCacheRefreshService createCsrsCacheRefreshService(boolean enabled) {
+        return new CsrsCacheRefreshService(csrsService, schedulerLock, meterRegistry, enabled, 10000);
+    }
+}
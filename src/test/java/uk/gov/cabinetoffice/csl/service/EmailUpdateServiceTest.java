@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 import uk.gov.cabinetoffice.csl.domain.EmailUpdate;
 import uk.gov.cabinetoffice.csl.domain.Identity;
@@ -190,6 +191,9 @@ public class EmailUpdateServiceTest {
 
         emailUpdateService.updateEmailAddress(createPendingEmailUpdate());
 
+        verify(csrsService, never()).removeOrganisationalUnitFromCivilServant(any());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
         verify(csrsService, times(1)).removeOrganisationalUnitFromCivilServant(any());
         verify(identityService, times(1)).updateEmailAddress(identityArgumentCaptor.capture(),
                 eq(NEW_EMAIL_ADDRESS), isNull());
@@ -210,6 +214,9 @@ public class EmailUpdateServiceTest {
 
         emailUpdateService.updateEmailAddress(createPendingEmailUpdate(), agencyToken);
 
+        verify(csrsService, never()).removeOrganisationalUnitFromCivilServant(any());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
         verify(csrsService, times(1)).removeOrganisationalUnitFromCivilServant(any());
         verify(identityService, times(1)).updateEmailAddress(identityArgumentCaptor.capture(),
                 eq(NEW_EMAIL_ADDRESS), eq(agencyToken));
@@ -3,6 +3,7 @@ package uk.gov.cabinetoffice.csl.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -11,6 +12,7 @@ import uk.gov.cabinetoffice.csl.domain.*;
 import uk.gov.cabinetoffice.csl.dto.AgencyToken;
 import uk.gov.cabinetoffice.csl.dto.BatchProcessResponse;
 import uk.gov.cabinetoffice.csl.exception.IdentityNotFoundException;
+import uk.gov.cabinetoffice.csl.exception.NotEnoughSpaceAvailableException;
 import uk.gov.cabinetoffice.csl.repository.CompoundRolesRepository;
 import uk.gov.cabinetoffice.csl.repository.IdentityRepository;
 import uk.gov.cabinetoffice.csl.util.Utils;
@@ -170,7 +172,7 @@ public class IdentityServiceTest {
         when(csrsService.getAgencyToken(tokenDomain, tokenToken, tokenCode))
                 .thenReturn(Optional.of(agencyToken));
         when(passwordEncoder.encode("password")).thenReturn("password");
-        when(agencyTokenCapacityService.hasSpaceAvailable(agencyToken)).thenReturn(true);
+        when(agencyTokenCapacityService.reserveSpace(agencyToken)).thenReturn(true);
 
         identityService.createIdentityFromInviteCode(code, "password", agencyToken);
 
@@ -183,6 +185,9 @@ public class IdentityServiceTest {
         assertThat(identity.getPassword(), equalTo("password"));
         assertThat(identity.getEmail(), equalTo("test@example.com"));
         assertThat(identity.getAgencyTokenUid(), equalTo(uid));
+        InOrder inOrder = inOrder(passwordEncoder, agencyTokenCapacityService);
+        inOrder.verify(passwordEncoder).encode("password");
+        inOrder.verify(agencyTokenCapacityService).reserveSpace(agencyToken);
     }
 
     @Test
@@ -267,7 +272,7 @@ public class IdentityServiceTest {
         agencyToken.setDomain(tokenDomain);
         agencyToken.setOrg(tokenCode);
         agencyToken.setToken(tokenToken);
-        when(agencyTokenCapacityService.hasSpaceAvailable(agencyToken)).thenReturn(true);
+        when(agencyTokenCapacityService.reserveSpace(agencyToken)).thenReturn(true);
 
         Identity updatedIdentity = identityService.assignAgencyToken(email, agencyToken);
         assertTrue(updatedIdentity.isActive());
@@ -278,5 +283,38 @@ public class IdentityServiceTest {
         ArgumentCaptor<Identity> identityArgumentCaptor = ArgumentCaptor.forClass(Identity.class);
         verify(identityRepository).save(identityArgumentCaptor.capture());
         verify(csrsService, times(1)).removeOrganisationalUnitFromCivilServant(any());
+        verify(agencyTokenCapacityService).reserveSpace(agencyToken);
+        verify(agencyTokenCapacityService, never()).releaseSpace(any());
+    }
+
+    @Test
+    public void shouldMoveIdentityToAgencyTokenWithReservedSpace() {
+        Identity identity = createIdentity(UID, EMAIL, "password", "OLD");
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid("NEW");
+        when(identityRepository.findFirstByEmailEqualsIgnoreCase(EMAIL)).thenReturn(identity);
+        when(agencyTokenCapacityService.reserveSpace(agencyToken)).thenReturn(true);
+
+        identityService.assignAgencyToken(EMAIL, agencyToken);
+
+        assertEquals("NEW", identity.getAgencyTokenUid());
+        verify(agencyTokenCapacityService).releaseSpace("OLD");
+        verify(identityRepository).save(identity);
+    }
+
+    @Test
+    public void shouldNotAssignAgencyTokenWhenNoSpaceCanBeReserved() {
+        Identity identity = createIdentity(UID, EMAIL, "password", "OLD");
+        AgencyToken agencyToken = new AgencyToken();
+        agencyToken.setUid("NEW");
+        when(identityRepository.findFirstByEmailEqualsIgnoreCase(EMAIL)).thenReturn(identity);
+        when(agencyTokenCapacityService.reserveSpace(agencyToken)).thenReturn(false);
+
+        assertThrows(NotEnoughSpaceAvailableException.class,
+                () -> identityService.assignAgencyToken(EMAIL, agencyToken));
+
+        assertEquals("OLD", identity.getAgencyTokenUid());
+        verify(agencyTokenCapacityService, never()).releaseSpace(any());
+        verify(identityRepository, never()).save(any());
     }
 }
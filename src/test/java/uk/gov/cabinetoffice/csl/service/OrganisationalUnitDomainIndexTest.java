@@ -0,0 +1,56 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrganisationalUnitDomainIndexTest {
+
+    private final OrganisationalUnit cabinetOffice = createOrganisationalUnit("CO", List.of("cabinetoffice.gov.uk"),
+            null);
+    private final OrganisationalUnit agency = createOrganisationalUnit("AG", List.of("agency.gov.uk"),
+            new AgencyToken("uid", "token", 10L, List.of(new Domain(1L, "Example.com"))));
+    private final OrganisationalUnit cabinetOfficeChild = createOrganisationalUnit("COC",
+            List.of("cabinetoffice.gov.uk", "example.com"),
+            new AgencyToken("uid", "token", 10L, List.of(new Domain(1L, "example.com"))));
+
+    private final OrganisationalUnitDomainIndex index = new OrganisationalUnitDomainIndex(
+            List.of(cabinetOffice, agency, cabinetOfficeChild));
+
+    @Test
+    public void shouldReturnOrganisationalUnitsForDomainInLoadedOrder() {
+        assertEquals(List.of(cabinetOffice, cabinetOfficeChild), index.getByDomain("cabinetoffice.gov.uk"));
+        assertEquals(List.of(agency, cabinetOfficeChild), index.getByDomain("example.com"));
+    }
+
+    @Test
+    public void shouldMatchDomainsIgnoringCase() {
+        assertEquals(List.of(agency, cabinetOfficeChild), index.getByDomain("EXAMPLE.com"));
+        assertTrue(index.containsDomain("Agency.Gov.UK"));
+    }
+
+    @Test
+    public void shouldListUnitOnceWhenDomainIsBothLinkedAndAgencyAssigned() {
+        assertEquals(1, index.getByDomain("example.com").stream().filter(unit -> unit == cabinetOfficeChild).count());
+    }
+
+    @Test
+    public void shouldReturnEmptyListForUnknownDomain() {
+        assertEquals(List.of(), index.getByDomain("unknown.com"));
+        assertFalse(index.containsDomain("unknown.com"));
+        assertFalse(index.containsDomain(null));
+    }
+
+    private OrganisationalUnit createOrganisationalUnit(String code, List<String> domains, AgencyToken agencyToken) {
+        OrganisationalUnit organisationalUnit = new OrganisationalUnit();
+        organisationalUnit.setCode(code);
+        organisationalUnit.setDomains(domains.stream().map(domain -> new Domain(null, domain)).toList());
+        organisationalUnit.setAgencyToken(agencyToken);
+        return organisationalUnit;
+    }
+}
@@ -0,0 +1,85 @@
+package uk.gov.cabinetoffice.csl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles("no-redis")
+public class SchedulerLockTest {
+
+    private static final String LOCK = "test-lock";
+    private static final Duration LOCK_AT_MOST = Duration.ofMinutes(10);
+    private static final Duration LOCK_AT_LEAST = Duration.ofMinutes(1);
+
+    private final Instant now = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Clock clock;
+    private SchedulerLock node1;
+    private SchedulerLock node2;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM scheduler_lock");
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(now);
+        node1 = new SchedulerLock(jdbcTemplate, clock);
+        node2 = new SchedulerLock(jdbcTemplate, clock);
+    }
+
+    @Test
+    public void shouldNotRunOnAnotherNodeWhileLocked() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(node1.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, () -> {
+            runs.incrementAndGet();
+            assertFalse(node2.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, runs::incrementAndGet));
+        }));
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void shouldHoldLockForAtLeastLockAtLeast() {
+        AtomicInteger runs = new AtomicInteger();
+        node1.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, runs::incrementAndGet);
+
+        when(clock.instant()).thenReturn(now.plusSeconds(30));
+        assertFalse(node2.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, runs::incrementAndGet));
+
+        when(clock.instant()).thenReturn(now.plusSeconds(60));
+        assertTrue(node2.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void shouldReleaseLockAfterLockAtMostWhenNotUnlocked() {
+        jdbcTemplate.update("INSERT INTO scheduler_lock (name, locked_at, locked_until, locked_by) VALUES (?, ?, ?, ?)",
+                LOCK, Timestamp.from(now), Timestamp.from(now.plus(LOCK_AT_MOST)), "dead-node");
+        AtomicInteger runs = new AtomicInteger();
+
+        assertFalse(node1.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, runs::incrementAndGet));
+
+        when(clock.instant()).thenReturn(now.plus(LOCK_AT_MOST));
+        assertTrue(node1.runExclusively(LOCK, LOCK_AT_MOST, LOCK_AT_LEAST, runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+}
@@ -0,0 +1,150 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import uk.gov.cabinetoffice.csl.domain.Identity;
+import uk.gov.cabinetoffice.csl.domain.Role;
+import uk.gov.cabinetoffice.csl.dto.IdentityDetails;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.oauth2.jose.jws.MacAlgorithm.HS256;
+import static org.springframework.security.oauth2.jose.jws.SignatureAlgorithm.RS256;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+import static uk.gov.cabinetoffice.csl.service.auth2.AccessTokenCustomizer.ACCESS_TOKEN_SIGNATURE_ALGORITHM;
+
+public class AccessTokenCustomizerTest {
+
+    private final RegisteredClient registeredClient = createRegisteredClient(TokenSettings.builder().build());
+
+    private SigningKeyService signingKeyService;
+    private AccessTokenCustomizer accessTokenCustomizer;
+
+    @BeforeEach
+    public void setUp() {
+        signingKeyService = mock(SigningKeyService.class);
+        accessTokenCustomizer = new AccessTokenCustomizer(signingKeyService);
+    }
+
+    @Test
+    public void shouldAddUserClaimsToAccessToken() {
+        Identity identity = new Identity();
+        identity.setUid("uid");
+        identity.setEmail("learner@example.com");
+        identity.setRoles(Set.of(new Role("LEARNER", null), new Role("ORGANISATION_REPORTER", null)));
+        IdentityDetails identityDetails = new IdentityDetails(identity);
+        Authentication principal = new UsernamePasswordAuthenticationToken(identityDetails, null,
+                identityDetails.getAuthorities());
+
+        Map<String, Object> claims = customize(registeredClient, principal).build().getClaims();
+
+        assertEquals("clientId", claims.get("client_id"));
+        assertEquals(Set.of("read", "write"), claims.get("scopes"));
+        assertEquals("uid", claims.get("user_name"));
+        assertEquals("learner@example.com", claims.get("email"));
+        assertEquals(Set.of("LEARNER", "ORGANISATION_REPORTER"), claims.get("authorities"));
+        assertNotNull(claims.get("jti"));
+        assertEquals(List.of(), claims.get("aud"));
+    }
+
+    @Test
+    public void shouldAddClientAuthorityForClientCredentials() {
+        Authentication principal = new OAuth2ClientAuthenticationToken(registeredClient,
+                ClientAuthenticationMethod.CLIENT_SECRET_BASIC, null);
+
+        Map<String, Object> claims = customize(registeredClient, principal).build().getClaims();
+
+        assertEquals("clientId", claims.get("user_name"));
+        assertEquals(Set.of("CLIENT"), claims.get("authorities"));
+    }
+
+    @Test
+    public void shouldReuseClientClaimsAndGenerateUniqueJti() {
+        Authentication principal = new OAuth2ClientAuthenticationToken(registeredClient,
+                ClientAuthenticationMethod.CLIENT_SECRET_BASIC, null);
+
+        Map<String, Object> first = customize(registeredClient, principal).build().getClaims();
+        Map<String, Object> second = customize(registeredClient, principal).build().getClaims();
+
+        assertSame(first.get("scopes"), second.get("scopes"));
+        assertNotEquals(first.get("jti"), second.get("jti"));
+    }
+
+    @Test
+    public void shouldSignWithHs256ByDefault() {
+        JwsHeader jwsHeader = customizeHeader(registeredClient);
+
+        assertEquals(HS256, jwsHeader.getAlgorithm());
+        verifyNoInteractions(signingKeyService);
+    }
+
+    @Test
+    public void shouldSignWithClientAlgorithmWhenKeyIsActive() {
+        RegisteredClient rs256Client = createRegisteredClient(TokenSettings.builder()
+                .setting(ACCESS_TOKEN_SIGNATURE_ALGORITHM, "RS256").build());
+        when(signingKeyService.getSigningKeyId(JWSAlgorithm.RS256)).thenReturn("kid1");
+
+        JwsHeader jwsHeader = customizeHeader(rs256Client);
+
+        assertEquals(RS256, jwsHeader.getAlgorithm());
+        assertEquals("kid1", jwsHeader.getKeyId());
+    }
+
+    @Test
+    public void shouldFallBackToHs256WhenNoKeyIsActive() {
+        RegisteredClient rs256Client = createRegisteredClient(TokenSettings.builder()
+                .setting(ACCESS_TOKEN_SIGNATURE_ALGORITHM, "RS256").build());
+
+        assertEquals(HS256, customizeHeader(rs256Client).getAlgorithm());
+    }
+
+    private JwsHeader customizeHeader(RegisteredClient client) {
+        JwsHeader.Builder jwsHeader = JwsHeader.with(HS256);
+        accessTokenCustomizer.customize(createContext(jwsHeader, JwtClaimsSet.builder(), client,
+                new OAuth2ClientAuthenticationToken(client, ClientAuthenticationMethod.CLIENT_SECRET_BASIC, null)));
+        return jwsHeader.build();
+    }
+
+    private JwtClaimsSet.Builder customize(RegisteredClient client, Authentication principal) {
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder().issuedAt(Instant.now());
+        accessTokenCustomizer.customize(createContext(JwsHeader.with(HS256), claims, client, principal));
+        return claims;
+    }
+
+    private JwtEncodingContext createContext(JwsHeader.Builder jwsHeader, JwtClaimsSet.Builder claims,
+                                             RegisteredClient client, Authentication principal) {
+        return JwtEncodingContext.with(jwsHeader, claims)
+                .registeredClient(client)
+                .principal(principal)
+                .tokenType(ACCESS_TOKEN)
+                .build();
+    }
+
+    private RegisteredClient createRegisteredClient(TokenSettings tokenSettings) {
+        return RegisteredClient.withId("registeredClientId")
+                .clientId("clientId")
+                .clientSecret("secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .scope("read")
+                .scope("write")
+                .tokenSettings(tokenSettings)
+                .build();
+    }
+}
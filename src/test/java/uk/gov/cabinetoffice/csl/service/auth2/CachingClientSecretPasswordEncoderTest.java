@@ -0,0 +1,62 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingClientSecretPasswordEncoderTest {
+
+    private static final String ENCODED_SECRET = new BCryptPasswordEncoder(4).encode("secret");
+
+    private PasswordEncoder delegate;
+    private ClientSecretVerificationCache clientSecretVerificationCache;
+    private CachingClientSecretPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = spy(new BCryptPasswordEncoder(4));
+        clientSecretVerificationCache = new ClientSecretVerificationCache(new SimpleMeterRegistry(), 100, 60);
+        passwordEncoder = new CachingClientSecretPasswordEncoder(delegate, clientSecretVerificationCache);
+    }
+
+    @Test
+    public void shouldVerifyRepeatedSecretFromCache() {
+        assertTrue(passwordEncoder.matches("secret", ENCODED_SECRET));
+        assertTrue(passwordEncoder.matches("secret", ENCODED_SECRET));
+
+        verify(delegate, times(1)).matches("secret", ENCODED_SECRET);
+    }
+
+    @Test
+    public void shouldAlwaysCheckWrongSecretWithDelegate() {
+        assertTrue(passwordEncoder.matches("secret", ENCODED_SECRET));
+
+        assertFalse(passwordEncoder.matches("wrong", ENCODED_SECRET));
+        assertFalse(passwordEncoder.matches("wrong", ENCODED_SECRET));
+
+        verify(delegate, times(2)).matches("wrong", ENCODED_SECRET);
+    }
+
+    @Test
+    public void shouldCheckWithDelegateAgainAfterEviction() {
+        passwordEncoder.matches("secret", ENCODED_SECRET);
+
+        clientSecretVerificationCache.evictAll();
+        passwordEncoder.matches("secret", ENCODED_SECRET);
+
+        verify(delegate, times(2)).matches("secret", ENCODED_SECRET);
+    }
+
+    @Test
+    public void shouldNotMatchSecretVerifiedForAnotherClient() {
+        String otherEncodedSecret = new BCryptPasswordEncoder(4).encode("other");
+        passwordEncoder.matches("secret", ENCODED_SECRET);
+
+        assertFalse(passwordEncoder.matches("secret", otherEncodedSecret));
+    }
+}
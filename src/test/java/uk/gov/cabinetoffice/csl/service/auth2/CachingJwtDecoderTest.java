@@ -0,0 +1,71 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class CachingJwtDecoderTest {
+
+    private JwtDecoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingJwtDecoder cachingJwtDecoder;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(JwtDecoder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cachingJwtDecoder = new CachingJwtDecoder(delegate, 100, ofSeconds(300), Clock.systemUTC(), meterRegistry);
+    }
+
+    @Test
+    public void shouldDecodeTokenOnce() {
+        Jwt jwt = createJwt("token1", Instant.now().plusSeconds(3600));
+        when(delegate.decode("token1")).thenReturn(jwt);
+
+        assertEquals(jwt, cachingJwtDecoder.decode("token1"));
+        assertEquals(jwt, cachingJwtDecoder.decode("token1"));
+        verify(delegate, times(1)).decode("token1");
+        assertEquals(1, meterRegistry.timer("oauth2.jwt.decode").count());
+    }
+
+    @Test
+    public void shouldNotServeExpiredToken() {
+        Jwt jwt = createJwt("token1", Instant.now().minusSeconds(1));
+        when(delegate.decode("token1")).thenReturn(jwt);
+
+        cachingJwtDecoder.decode("token1");
+        cachingJwtDecoder.decode("token1");
+
+        verify(delegate, times(2)).decode("token1");
+    }
+
+    @Test
+    public void shouldNotCacheInvalidToken() {
+        when(delegate.decode("invalid")).thenThrow(new BadJwtException("invalid"));
+
+        assertThrows(BadJwtException.class, () -> cachingJwtDecoder.decode("invalid"));
+        assertThrows(BadJwtException.class, () -> cachingJwtDecoder.decode("invalid"));
+
+        verify(delegate, times(2)).decode("invalid");
+    }
+
+    private Jwt createJwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .claim("user_name", "uid")
+                .issuedAt(expiresAt.minusSeconds(3600))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
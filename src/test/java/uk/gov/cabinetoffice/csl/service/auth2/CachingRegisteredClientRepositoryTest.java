@@ -0,0 +1,128 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+public class CachingRegisteredClientRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final RegisteredClient registeredClient = RegisteredClient.withId("registeredClientId")
+            .clientId("clientId")
+            .clientSecret("secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .build();
+
+    private RegisteredClientRepository delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private CachingRegisteredClientRepository cachingRegisteredClientRepository;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(RegisteredClientRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(NOW);
+        cachingRegisteredClientRepository = new CachingRegisteredClientRepository(delegate, ofSeconds(300), clock,
+                meterRegistry);
+        when(delegate.findByClientId("clientId")).thenReturn(registeredClient);
+        when(delegate.findById("registeredClientId")).thenReturn(registeredClient);
+    }
+
+    @Test
+    public void shouldLoadClientOnceAndServeBothKeysFromCache() {
+        assertEquals(registeredClient, cachingRegisteredClientRepository.findByClientId("clientId"));
+        assertEquals(registeredClient, cachingRegisteredClientRepository.findByClientId("clientId"));
+        assertEquals(registeredClient, cachingRegisteredClientRepository.findById("registeredClientId"));
+
+        verify(delegate, times(1)).findByClientId("clientId");
+        verify(delegate, never()).findById(any());
+        assertEquals(2, meterRegistry.counter("oauth2.registered_client.cache", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("oauth2.registered_client.cache", "result", "miss").count());
+    }
+
+    @Test
+    public void shouldReloadClientAfterTtl() {
+        cachingRegisteredClientRepository.findByClientId("clientId");
+        clock.instant = NOW.plusSeconds(301);
+        cachingRegisteredClientRepository.findByClientId("clientId");
+
+        verify(delegate, times(2)).findByClientId("clientId");
+    }
+
+    @Test
+    public void shouldReloadClientAfterEviction() {
+        cachingRegisteredClientRepository.findByClientId("clientId");
+        cachingRegisteredClientRepository.evictAll();
+        cachingRegisteredClientRepository.findByClientId("clientId");
+
+        verify(delegate, times(2)).findByClientId("clientId");
+    }
+
+    @Test
+    public void shouldEvictOnSave() {
+        cachingRegisteredClientRepository.findByClientId("clientId");
+        cachingRegisteredClientRepository.save(registeredClient);
+        cachingRegisteredClientRepository.findByClientId("clientId");
+
+        verify(delegate).save(registeredClient);
+        verify(delegate, times(2)).findByClientId("clientId");
+    }
+
+    @Test
+    public void shouldNotifyEvictionListenersOnSave() {
+        Runnable evictionListener = mock(Runnable.class);
+        cachingRegisteredClientRepository.addEvictionListener(evictionListener);
+
+        cachingRegisteredClientRepository.save(registeredClient);
+
+        verify(evictionListener).run();
+    }
+
+    @Test
+    public void shouldNotCacheUnknownClient() {
+        assertNull(cachingRegisteredClientRepository.findByClientId("unknown"));
+        assertNull(cachingRegisteredClientRepository.findByClientId("unknown"));
+
+        verify(delegate, times(2)).findByClientId("unknown");
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
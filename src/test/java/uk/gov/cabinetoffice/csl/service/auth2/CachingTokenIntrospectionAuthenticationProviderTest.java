@@ -0,0 +1,162 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenIntrospection;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2TokenIntrospectionAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CachingTokenIntrospectionAuthenticationProviderTest {
+
+    private final RegisteredClient registeredClient = RegisteredClient.withId("registeredClientId")
+            .clientId("clientId")
+            .clientSecret("secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .build();
+
+    private final OAuth2ClientAuthenticationToken clientPrincipal = new OAuth2ClientAuthenticationToken(
+            registeredClient, ClientAuthenticationMethod.CLIENT_SECRET_BASIC, null);
+
+    private AuthenticationProvider delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenIntrospectionCache tokenIntrospectionCache;
+    private TokenDenylistService tokenDenylistService;
+    private CachingTokenIntrospectionAuthenticationProvider provider;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(AuthenticationProvider.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenIntrospectionCache = new TokenIntrospectionCache(Clock.systemUTC(), meterRegistry, 100, 60);
+        tokenDenylistService = new TokenDenylistService(new ConcurrentMapCacheManager(), Clock.systemUTC());
+        provider = new CachingTokenIntrospectionAuthenticationProvider(delegate, tokenIntrospectionCache,
+                tokenDenylistService, meterRegistry);
+    }
+
+    @Test
+    public void shouldAnswerRepeatedIntrospectionFromCache() {
+        mockIntrospection("token1", introspection(true, "uid1", "jti1"));
+
+        OAuth2TokenIntrospectionAuthenticationToken first = introspect("token1");
+        OAuth2TokenIntrospectionAuthenticationToken second = introspect("token1");
+
+        assertTrue(second.getTokenClaims().isActive());
+        assertEquals(first.getTokenClaims().getClaims(), second.getTokenClaims().getClaims());
+        verify(delegate, times(1)).authenticate(any());
+        assertEquals(1, meterRegistry.counter("oauth2.introspection.requests",
+                "client_id", "clientId", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("oauth2.introspection.requests",
+                "client_id", "clientId", "result", "miss").count());
+    }
+
+    @Test
+    public void shouldNotCacheInactiveToken() {
+        mockIntrospection("token1", introspection(false, null, null));
+
+        introspect("token1");
+        introspect("token1");
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    public void shouldEvictBySubjectAndIgnoreDeniedTokens() {
+        mockIntrospection("token1", introspection(true, "uid1", "jti1"));
+        mockIntrospection("token2", introspection(true, "uid2", "jti2"));
+        introspect("token1");
+        introspect("token2");
+
+        tokenIntrospectionCache.evictBySubject("uid1");
+        tokenDenylistService.denyToken("jti2", Instant.now().plusSeconds(3600));
+        introspect("token1");
+        introspect("token2");
+
+        verify(delegate, times(4)).authenticate(any());
+    }
+
+    @Test
+    public void shouldHonourRevocationsRecordedByAnotherNode() {
+        AuthenticationProvider otherDelegate = mock(AuthenticationProvider.class);
+        CachingTokenIntrospectionAuthenticationProvider otherNode = new CachingTokenIntrospectionAuthenticationProvider(
+                otherDelegate, new TokenIntrospectionCache(Clock.systemUTC(), meterRegistry, 100, 60),
+                tokenDenylistService, meterRegistry);
+        mockIntrospection("token1", introspection(true, "uid1", "jti1"));
+        mockIntrospection("token2", introspection(true, "uid2", "jti2"));
+        when(otherDelegate.authenticate(any())).thenAnswer(invocation -> delegate.authenticate(invocation.getArgument(0)));
+        for (int i = 0; i < 2; i++) {
+            introspect("token1");
+            introspect("token2");
+            introspect(otherNode, "token1");
+            introspect(otherNode, "token2");
+        }
+
+        tokenDenylistService.denyPrincipal("uid1");
+        tokenDenylistService.denyToken("jti2", Instant.now().plusSeconds(3600));
+        introspect("token1");
+        introspect("token2");
+        introspect(otherNode, "token1");
+        introspect(otherNode, "token2");
+
+        verify(otherDelegate, times(4)).authenticate(any());
+        verify(delegate, times(8)).authenticate(any());
+    }
+
+    @Test
+    public void shouldNotAnswerFromCacheAfterLogoutOnAnotherNode() {
+        OAuth2TokenIntrospection tokenClaims = introspection(true, "uid1", "jti1");
+        mockIntrospection("token1", tokenClaims);
+        introspect("token1");
+        introspect("token1");
+        Oauth2AuthorizationLogoutService otherNodeLogoutService = new Oauth2AuthorizationLogoutService(
+                mock(IOAuth2AuthorizationService.class), tokenDenylistService,
+                new TokenIntrospectionCache(Clock.systemUTC(), meterRegistry, 100, 60), Runnable::run, false);
+
+        otherNodeLogoutService.removeAuthorizations("uid1");
+        mockIntrospection("token1", introspection(false, null, null));
+
+        assertFalse(introspect("token1").getTokenClaims().isActive());
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private OAuth2TokenIntrospectionAuthenticationToken introspect(String token) {
+        return introspect(provider, token);
+    }
+
+    private OAuth2TokenIntrospectionAuthenticationToken introspect(AuthenticationProvider provider, String token) {
+        return (OAuth2TokenIntrospectionAuthenticationToken) provider.authenticate(
+                new OAuth2TokenIntrospectionAuthenticationToken(token, clientPrincipal, null, null));
+    }
+
+    private void mockIntrospection(String token, OAuth2TokenIntrospection tokenClaims) {
+        when(delegate.authenticate(argThat(authentication -> authentication instanceof
+                OAuth2TokenIntrospectionAuthenticationToken request && token.equals(request.getToken()))))
+                .thenReturn(new OAuth2TokenIntrospectionAuthenticationToken(token, clientPrincipal, tokenClaims));
+    }
+
+    private OAuth2TokenIntrospection introspection(boolean active, String subject, String jti) {
+        if (!active) {
+            return OAuth2TokenIntrospection.builder().build();
+        }
+        Instant now = Instant.now();
+        return OAuth2TokenIntrospection.withClaims(Map.of("sub", subject, "jti", jti))
+                .active(true)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .build();
+    }
+}
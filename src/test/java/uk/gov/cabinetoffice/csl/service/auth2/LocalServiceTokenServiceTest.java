@@ -0,0 +1,100 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LocalServiceTokenServiceTest {
+
+    private static final String JWT_KEY = "test-signing-key-that-is-at-least-256-bits-long";
+
+    private RegisteredClientRepository registeredClientRepository;
+    private OAuth2AuthorizationService authorizationService;
+    private LocalServiceTokenService localServiceTokenService;
+
+    @BeforeEach
+    public void setUp() {
+        registeredClientRepository = mock(RegisteredClientRepository.class);
+        authorizationService = mock(OAuth2AuthorizationService.class);
+        OctetSequenceKey key = new OctetSequenceKey.Builder(JWT_KEY.getBytes(StandardCharsets.UTF_8)).build();
+        localServiceTokenService = new LocalServiceTokenService(registeredClientRepository, authorizationService,
+                new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(key))),
+                new AccessTokenCustomizer(mock(SigningKeyService.class)),
+                "http://localhost:8080", "clientId");
+    }
+
+    @Test
+    public void shouldIssueClientCredentialsTokenWithCustomClaims() {
+        when(registeredClientRepository.findByClientId("clientId"))
+                .thenReturn(createRegisteredClient(OAuth2TokenFormat.SELF_CONTAINED));
+
+        OAuthToken oAuthToken = localServiceTokenService.getServiceToken();
+
+        Jwt jwt = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(JWT_KEY.getBytes(StandardCharsets.UTF_8),
+                "HmacSHA256")).build().decode(oAuthToken.getAccessToken());
+        assertEquals("clientId", jwt.getSubject());
+        assertEquals("clientId", jwt.getClaimAsString("client_id"));
+        assertEquals("clientId", jwt.getClaimAsString("user_name"));
+        assertEquals(List.of("CLIENT"), jwt.getClaimAsStringList("authorities"));
+        assertEquals(List.of("read"), jwt.getClaimAsStringList("scopes"));
+        assertEquals("http://localhost:8080", jwt.getClaimAsString("iss"));
+        assertEquals(jwt.getId(), oAuthToken.getJti());
+        assertEquals(1800, oAuthToken.getExpiresIn());
+        assertEquals("Bearer", oAuthToken.getTokenType());
+
+        ArgumentCaptor<OAuth2Authorization> authorization = ArgumentCaptor.forClass(OAuth2Authorization.class);
+        verify(authorizationService).save(authorization.capture());
+        assertEquals(oAuthToken.getAccessToken(),
+                authorization.getValue().getAccessToken().getToken().getTokenValue());
+        assertEquals(AuthorizationGrantType.CLIENT_CREDENTIALS,
+                authorization.getValue().getAuthorizationGrantType());
+    }
+
+    @Test
+    public void shouldNotIssueTokenForReferenceTokenClient() {
+        when(registeredClientRepository.findByClientId("clientId"))
+                .thenReturn(createRegisteredClient(OAuth2TokenFormat.REFERENCE));
+
+        assertNull(localServiceTokenService.getServiceToken());
+        verifyNoInteractions(authorizationService);
+    }
+
+    @Test
+    public void shouldNotIssueTokenForUnknownClient() {
+        assertNull(localServiceTokenService.getServiceToken());
+    }
+
+    private RegisteredClient createRegisteredClient(OAuth2TokenFormat accessTokenFormat) {
+        return RegisteredClient.withId("registeredClientId")
+                .clientId("clientId")
+                .clientSecret("secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .scope("read")
+                .tokenSettings(TokenSettings.builder().accessTokenFormat(accessTokenFormat)
+                        .accessTokenTimeToLive(Duration.ofMinutes(30)).build())
+                .build();
+    }
+}
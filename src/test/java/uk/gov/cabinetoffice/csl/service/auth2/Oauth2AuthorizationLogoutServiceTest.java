@@ -0,0 +1,94 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.oauth2.core.OAuth2AccessToken.TokenType.BEARER;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+
+public class Oauth2AuthorizationLogoutServiceTest {
+
+    private final RegisteredClient registeredClient = RegisteredClient.withId("registeredClientId")
+            .clientId("clientId")
+            .clientSecret("secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost/callback")
+            .build();
+
+    private IOAuth2AuthorizationService store;
+    private TokenDenylistService tokenDenylistService;
+    private PrincipalDenylistAuthorizationService authorizationService;
+    private final TokenIntrospectionCache tokenIntrospectionCache = new TokenIntrospectionCache(Clock.systemUTC(),
+            new SimpleMeterRegistry(), 100, 60);
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+    private final TaskExecutor taskExecutor = submittedTasks::add;
+
+    @BeforeEach
+    public void setUp() {
+        store = mock(IOAuth2AuthorizationService.class);
+        tokenDenylistService = new TokenDenylistService(new ConcurrentMapCacheManager(), Clock.systemUTC());
+        authorizationService = new PrincipalDenylistAuthorizationService(store, tokenDenylistService);
+    }
+
+    @Test
+    public void shouldRemoveAuthorizationsInRequestThreadByDefault() {
+        new Oauth2AuthorizationLogoutService(authorizationService, tokenDenylistService, tokenIntrospectionCache,
+                taskExecutor, false)
+                .removeAuthorizations("uid");
+
+        verify(store).removeByPrincipalName("uid");
+        assertTrue(submittedTasks.isEmpty());
+        assertTrue(tokenDenylistService.isPrincipalDenied("uid", Instant.now().minusSeconds(1)));
+    }
+
+    @Test
+    public void shouldDenyTokensImmediatelyAndRemoveAuthorizationsLater() {
+        Instant issuedAt = Instant.now().minusSeconds(10);
+        when(store.findByToken("access1", ACCESS_TOKEN)).thenReturn(createAuthorization("access1", issuedAt));
+        assertNotNull(authorizationService.findByToken("access1", ACCESS_TOKEN));
+
+        new Oauth2AuthorizationLogoutService(authorizationService, tokenDenylistService, tokenIntrospectionCache,
+                taskExecutor, true)
+                .removeAuthorizations("uid");
+
+        assertNull(authorizationService.findByToken("access1", ACCESS_TOKEN));
+        verify(store, never()).removeByPrincipalName(any());
+
+        assertEquals(1, submittedTasks.size());
+        submittedTasks.get(0).run();
+        verify(store).removeByPrincipalName("uid");
+    }
+
+    @Test
+    public void shouldNotDenyTokensIssuedAfterLogout() {
+        tokenDenylistService.denyPrincipal("uid");
+        when(store.findByToken("access2", ACCESS_TOKEN))
+                .thenReturn(createAuthorization("access2", Instant.now().plusSeconds(1)));
+
+        assertNotNull(authorizationService.findByToken("access2", ACCESS_TOKEN));
+    }
+
+    private OAuth2Authorization createAuthorization(String accessToken, Instant issuedAt) {
+        return OAuth2Authorization.withRegisteredClient(registeredClient)
+                .principalName("uid")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .accessToken(new OAuth2AccessToken(BEARER, accessToken, issuedAt, issuedAt.plusSeconds(3600)))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"oauth2.authorizationPurge.batchSize=2", "oauth2.authorizationPurge.pauseMillis=0"})
+@Transactional
+@ActiveProfiles("no-redis")
+public class Oauth2AuthorizationPurgeServiceTest {
+
+    @Autowired
+    private Oauth2AuthorizationPurgeService oauth2AuthorizationPurgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM oauth2_authorization");
+    }
+
+    @Test
+    public void shouldDeleteOnlyExpiredAuthorizationsInBatches() {
+        Instant now = Instant.now();
+        insertAuthorization("expired1", now.minusSeconds(60), null);
+        insertAuthorization("expired2", now.minusSeconds(60), now.minusSeconds(30));
+        insertAuthorization("expired3", now.minusSeconds(60), null);
+        insertAuthorization("refreshable", now.minusSeconds(60), now.plusSeconds(3600));
+        insertAuthorization("active", now.plusSeconds(3600), null);
+        insertAuthorization("inProgress", null, null);
+
+        assertEquals(3, oauth2AuthorizationPurgeService.purgeExpiredAuthorizations());
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM oauth2_authorization WHERE id LIKE 'expired%'", Integer.class));
+    }
+
+    @Test
+    public void shouldNotPurgeOnScheduleWhileAnotherNodeHoldsTheLock() {
+        insertAuthorization("expired1", Instant.now().minusSeconds(60), null);
+        jdbcTemplate.update("DELETE FROM scheduler_lock");
+        jdbcTemplate.update("INSERT INTO scheduler_lock (name, locked_at, locked_until, locked_by) VALUES (?, ?, ?, ?)",
+                "oauth2-authorization-purge", Timestamp.from(Instant.now()),
+                Timestamp.from(Instant.now().plusSeconds(600)), "otherNode");
+
+        oauth2AuthorizationPurgeService.scheduledPurge();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Integer.class));
+    }
+
+    private void insertAuthorization(String id, Instant accessTokenExpiresAt, Instant refreshTokenExpiresAt) {
+        jdbcTemplate.update("INSERT INTO oauth2_authorization (id, registered_client_id, principal_name, " +
+                        "authorization_grant_type, access_token_expires_at, refresh_token_expires_at) " +
+                        "VALUES (?, 'registeredClientId', 'uid', 'password', ?, ?)",
+                id, toTimestamp(accessTokenExpiresAt), toTimestamp(refreshTokenExpiresAt));
+    }
+
+    private Timestamp toTimestamp(Instant instant) {
+        return instant != null ? Timestamp.from(instant) : null;
+    }
+}
@@ -0,0 +1,144 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.oauth2.core.OAuth2AccessToken.TokenType.BEARER;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.REFRESH_TOKEN;
+
+public class RedisAuthorizationServiceTest {
+
+    private static final String KEY_PREFIX = "test_oauth2_authorization:";
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private final RegisteredClient registeredClient = RegisteredClient.withId("registeredClientId")
+            .clientId("clientId")
+            .clientSecret("secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost/callback")
+            .build();
+
+    private RedisAuthorizationService redisAuthorizationService;
+
+    @BeforeAll
+    public static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        connectionFactory.getConnection().serverCommands().flushAll();
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        redisAuthorizationService = new RedisAuthorizationService(connectionFactory, KEY_PREFIX, ofSeconds(600), clock);
+    }
+
+    @Test
+    public void shouldFindSavedAuthorizationByIdAndTokens() {
+        OAuth2Authorization authorization = createAuthorization("id1", "uid1", "access1", "refresh1");
+
+        redisAuthorizationService.save(authorization);
+
+        assertEquals("uid1", redisAuthorizationService.findById("id1").getPrincipalName());
+        assertEquals("id1", redisAuthorizationService.findByToken("access1", ACCESS_TOKEN).getId());
+        assertEquals("id1", redisAuthorizationService.findByToken("refresh1", REFRESH_TOKEN).getId());
+        assertEquals("id1", redisAuthorizationService.findByToken("access1", null).getId());
+        assertNull(redisAuthorizationService.findByToken("access1", REFRESH_TOKEN));
+        assertNull(redisAuthorizationService.findByToken("unknown", null));
+    }
+
+    @Test
+    public void shouldExpireAuthorizationWithItsLastToken() {
+        redisAuthorizationService.save(createAuthorization("id1", "uid1", "access1", "refresh1"));
+
+        Long ttl = new StringRedisTemplate(connectionFactory).getExpire(KEY_PREFIX + "authorization:id1", SECONDS);
+
+        assertNotNull(ttl);
+        assertTrue(ttl > 3600 && ttl <= 7200);
+    }
+
+    @Test
+    public void shouldRemoveIndexesOfReplacedTokens() {
+        redisAuthorizationService.save(createAuthorization("id1", "uid1", "access1", "refresh1"));
+        redisAuthorizationService.save(createAuthorization("id1", "uid1", "access2", "refresh1"));
+
+        assertNull(redisAuthorizationService.findByToken("access1", ACCESS_TOKEN));
+        assertEquals("id1", redisAuthorizationService.findByToken("access2", ACCESS_TOKEN).getId());
+    }
+
+    @Test
+    public void shouldRemoveAuthorization() {
+        OAuth2Authorization authorization = createAuthorization("id1", "uid1", "access1", "refresh1");
+        redisAuthorizationService.save(authorization);
+
+        redisAuthorizationService.remove(authorization);
+
+        assertNull(redisAuthorizationService.findById("id1"));
+        assertNull(redisAuthorizationService.findByToken("access1", ACCESS_TOKEN));
+        assertNull(redisAuthorizationService.findByToken("refresh1", REFRESH_TOKEN));
+    }
+
+    @Test
+    public void shouldRemoveAllAuthorizationsForPrincipalName() {
+        redisAuthorizationService.save(createAuthorization("id1", "uid1", "access1", "refresh1"));
+        redisAuthorizationService.save(createAuthorization("id2", "uid1", "access2", "refresh2"));
+        redisAuthorizationService.save(createAuthorization("id3", "uid2", "access3", "refresh3"));
+
+        assertEquals(2, redisAuthorizationService.removeByPrincipalName("uid1"));
+
+        assertNull(redisAuthorizationService.findById("id1"));
+        assertNull(redisAuthorizationService.findById("id2"));
+        assertNull(redisAuthorizationService.findByToken("access2", ACCESS_TOKEN));
+        assertNotNull(redisAuthorizationService.findById("id3"));
+        assertEquals(0, redisAuthorizationService.removeByPrincipalName("uid1"));
+    }
+
+    private OAuth2Authorization createAuthorization(String id, String principalName, String accessToken,
+                                                    String refreshToken) {
+        return OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id(id)
+                .principalName(principalName)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .accessToken(new OAuth2AccessToken(BEARER, accessToken, NOW, NOW.plusSeconds(3600)))
+                .refreshToken(new OAuth2RefreshToken(refreshToken, NOW, NOW.plusSeconds(7200)))
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import uk.gov.cabinetoffice.csl.service.client.identity.IIdentityClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ServiceTokenHolderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+    private final TaskExecutor taskExecutor = submittedTasks::add;
+    private IIdentityClient identityClient;
+    private Clock clock;
+    private ServiceTokenHolder serviceTokenHolder;
+
+    @BeforeEach
+    public void setUp() {
+        identityClient = mock(IIdentityClient.class);
+        clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        serviceTokenHolder = new ServiceTokenHolder(identityClient, clock, taskExecutor, 60, 5);
+    }
+
+    @Test
+    public void shouldFetchTokenOnceAndHoldIt() {
+        when(identityClient.getServiceToken()).thenReturn(createToken("token1", 3600));
+
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+
+        verify(identityClient, times(1)).getServiceToken();
+        assertTrue(submittedTasks.isEmpty());
+    }
+
+    @Test
+    public void shouldReturnCurrentTokenAndRefreshInBackgroundWhenExpiring() {
+        when(identityClient.getServiceToken()).thenReturn(createToken("token1", 30), createToken("token1", 30),
+                createToken("token2", 3600));
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+        assertEquals(1, submittedTasks.size());
+
+        submittedTasks.get(0).run();
+        verify(identityClient).evictServiceTokenFromCache();
+        assertEquals("token2", serviceTokenHolder.getAccessToken());
+    }
+
+    @Test
+    public void shouldRefreshExpiringTokenOnSchedule() {
+        when(identityClient.getServiceToken()).thenReturn(createToken("token1", 30), createToken("token2", 3600));
+        serviceTokenHolder.refreshIfExpiring();
+        assertTrue(submittedTasks.isEmpty());
+
+        serviceTokenHolder.getAccessToken();
+        submittedTasks.clear();
+        serviceTokenHolder.refreshIfExpiring();
+        submittedTasks.forEach(Runnable::run);
+
+        assertEquals("token2", serviceTokenHolder.getAccessToken());
+    }
+
+    @Test
+    public void shouldKeepCurrentTokenWhenRefreshFails() {
+        when(identityClient.getServiceToken()).thenReturn(createToken("token1", 30), createToken("token1", 30))
+                .thenThrow(new RuntimeException("unavailable"));
+        serviceTokenHolder.getAccessToken();
+
+        serviceTokenHolder.getAccessToken();
+        submittedTasks.forEach(Runnable::run);
+
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+    }
+
+    @Test
+    public void shouldFetchNewTokenAfterEviction() {
+        when(identityClient.getServiceToken()).thenReturn(createToken("token1", 3600), createToken("token2", 3600));
+        assertEquals("token1", serviceTokenHolder.getAccessToken());
+
+        serviceTokenHolder.evict();
+
+        verify(identityClient).evictServiceTokenFromCache();
+        assertEquals("token2", serviceTokenHolder.getAccessToken());
+    }
+
+    @Test
+    public void shouldNotRefreshOnEveryRequestWhenTokenLifetimeIsShorterThanRefreshAhead() {
+        OAuthToken token = createToken("token1", 40);
+        token.setExpiresIn(40);
+        when(identityClient.getServiceToken()).thenReturn(token);
+
+        serviceTokenHolder.getAccessToken();
+        serviceTokenHolder.getAccessToken();
+        serviceTokenHolder.refreshIfExpiring();
+
+        verify(identityClient, times(1)).getServiceToken();
+        verify(identityClient, never()).evictServiceTokenFromCache();
+        assertTrue(submittedTasks.isEmpty());
+    }
+
+    private OAuthToken createToken(String accessToken, long expiresInSeconds) {
+        OAuthToken oAuthToken = new OAuthToken();
+        oAuthToken.setAccessToken(accessToken);
+        oAuthToken.setExpiryDateTime(LocalDateTime.now(clock).plusSeconds(expiresInSeconds));
+        return oAuthToken;
+    }
+}
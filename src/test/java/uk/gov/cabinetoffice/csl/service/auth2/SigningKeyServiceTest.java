@@ -0,0 +1,148 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.cabinetoffice.csl.domain.SigningKey;
+import uk.gov.cabinetoffice.csl.repository.SigningKeyRepository;
+import uk.gov.cabinetoffice.csl.service.SchedulerLock;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SigningKeyServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    // New keys start signing two reloads (of 5 minutes) after they are created
+    private static final Instant ACTIVATED = NOW.plus(Duration.ofMinutes(10));
+
+    private final List<SigningKey> storedKeys = new ArrayList<>();
+    private SigningKeyRepository signingKeyRepository;
+    private SchedulerLock schedulerLock;
+
+    @BeforeEach
+    public void setUp() {
+        schedulerLock = mock(SchedulerLock.class);
+        when(schedulerLock.runExclusively(any(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return true;
+        });
+        signingKeyRepository = mock(SigningKeyRepository.class);
+        when(signingKeyRepository.save(any(SigningKey.class))).thenAnswer(invocation -> {
+            storedKeys.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(signingKeyRepository.findByExpiresAtAfter(any(LocalDateTime.class))).thenAnswer(invocation -> {
+            LocalDateTime dateTime = invocation.getArgument(0);
+            return storedKeys.stream().filter(k -> k.getExpiresAt().isAfter(dateTime)).toList();
+        });
+        when(signingKeyRepository.deleteByExpiresAtLessThanEqual(any(LocalDateTime.class))).thenAnswer(invocation -> {
+            LocalDateTime dateTime = invocation.getArgument(0);
+            int size = storedKeys.size();
+            storedKeys.removeIf(k -> !k.getExpiresAt().isAfter(dateTime));
+            return (long) (size - storedKeys.size());
+        });
+    }
+
+    @Test
+    public void shouldCreateAndPublishKeysForConfiguredAlgorithms() {
+        SigningKeyService signingKeyService = createSigningKeyService(NOW, List.of("RS256", "ES256"));
+        signingKeyService.initialise();
+
+        JWKSet jwkSet = signingKeyService.getJwkSet();
+
+        assertEquals(3, jwkSet.getKeys().size());
+        assertEquals(2, storedKeys.size());
+        assertNull(signingKeyService.getSigningKeyId(JWSAlgorithm.RS256));
+        assertNull(signingKeyService.getSigningKeyId(JWSAlgorithm.ES256));
+
+        signingKeyService = createSigningKeyService(ACTIVATED, List.of("RS256", "ES256"));
+        jwkSet = signingKeyService.getJwkSet();
+        String rsaKid = signingKeyService.getSigningKeyId(JWSAlgorithm.RS256);
+        String ecKid = signingKeyService.getSigningKeyId(JWSAlgorithm.ES256);
+        assertNotNull(jwkSet.getKeyByKeyId(rsaKid));
+        assertNotNull(jwkSet.getKeyByKeyId(ecKid));
+        assertEquals(2, jwkSet.toPublicJWKSet().getKeys().size());
+        assertTrue(jwkSet.toPublicJWKSet().getKeys().stream().noneMatch(JWK::isPrivate));
+        assertNull(signingKeyService.getSigningKeyId(JWSAlgorithm.PS256));
+    }
+
+    @Test
+    public void shouldNotCreateKeysWhileAnotherNodeHoldsTheRotationLock() {
+        doReturn(false).when(schedulerLock).runExclusively(any(), any(), any(), any());
+        SigningKeyService signingKeyService = createSigningKeyService(NOW, List.of("RS256"));
+
+        signingKeyService.initialise();
+
+        assertTrue(storedKeys.isEmpty());
+        assertEquals(1, signingKeyService.getJwkSet().getKeys().size());
+        assertNull(signingKeyService.getSigningKeyId(JWSAlgorithm.RS256));
+    }
+
+    @Test
+    public void shouldNotCreateKeysOnRequest() {
+        SigningKeyService signingKeyService = createSigningKeyService(NOW, List.of("RS256"));
+
+        assertEquals(1, signingKeyService.getJwkSet().getKeys().size());
+        assertTrue(storedKeys.isEmpty());
+    }
+
+    @Test
+    public void shouldPrepublishNextKeyAndRetireOldKeyAfterRetention() {
+        createSigningKeyService(NOW, List.of("RS256")).initialise();
+        SigningKeyService signingKeyService = createSigningKeyService(ACTIVATED, List.of("RS256"));
+        String firstKid = signingKeyService.getSigningKeyId(JWSAlgorithm.RS256);
+        assertNotNull(firstKid);
+
+        // 29 days later the next key is published but the first one still signs
+        signingKeyService = createSigningKeyService(ACTIVATED.plus(Duration.ofDays(29)).plusSeconds(60), List.of("RS256"));
+        signingKeyService.rotateKeys();
+        assertEquals(2, storedKeys.size());
+        assertEquals(firstKid, signingKeyService.getSigningKeyId(JWSAlgorithm.RS256));
+        assertEquals(3, signingKeyService.getJwkSet().getKeys().size());
+
+        // After 30 days the second key signs while the first stays published
+        signingKeyService = createSigningKeyService(ACTIVATED.plus(Duration.ofDays(30)).plusSeconds(60), List.of("RS256"));
+        signingKeyService.reload();
+        String secondKid = signingKeyService.getSigningKeyId(JWSAlgorithm.RS256);
+        assertNotEquals(firstKid, secondKid);
+        assertNotNull(signingKeyService.getJwkSet().getKeyByKeyId(firstKid));
+
+        // After the retention period the first key is deleted
+        signingKeyService = createSigningKeyService(ACTIVATED.plus(Duration.ofDays(32)).plusSeconds(60), List.of("RS256"));
+        signingKeyService.rotateKeys();
+        assertNull(signingKeyService.getJwkSet().getKeyByKeyId(firstKid));
+        assertEquals(secondKid, signingKeyService.getSigningKeyId(JWSAlgorithm.RS256));
+    }
+
+    @Test
+    public void shouldPrepublishReplacementForLapsedKey() {
+        createSigningKeyService(NOW, List.of("RS256")).initialise();
+        String firstKid = createSigningKeyService(ACTIVATED, List.of("RS256")).getSigningKeyId(JWSAlgorithm.RS256);
+
+        // The first key deactivated a day ago without a replacement, it keeps signing until the next one is published
+        Instant lapsed = ACTIVATED.plus(Duration.ofDays(31));
+        SigningKeyService signingKeyService = createSigningKeyService(lapsed, List.of("RS256"));
+        signingKeyService.rotateKeys();
+        assertEquals(2, storedKeys.size());
+        assertEquals(firstKid, signingKeyService.getSigningKeyId(JWSAlgorithm.RS256));
+
+        signingKeyService = createSigningKeyService(lapsed.plus(Duration.ofMinutes(10)), List.of("RS256"));
+        assertNotEquals(firstKid, signingKeyService.getSigningKeyId(JWSAlgorithm.RS256));
+    }
+
+    private SigningKeyService createSigningKeyService(Instant now, List<String> algorithms) {
+        return new SigningKeyService(signingKeyRepository, schedulerLock, Clock.fixed(now, ZoneOffset.UTC),
+                "test-jwt-key-test-jwt-key-test-jwt-key", "0123456789abcdef0123456789abcdef",
+                algorithms, 30, 24, 2, 300000);
+    }
+}
@@ -0,0 +1,138 @@
+package uk.gov.cabinetoffice.csl.service.auth2;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.oauth2.core.OAuth2AccessToken.TokenType.BEARER;
+import static org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token.CLAIMS_METADATA_NAME;
+import static org.springframework.security.oauth2.server.authorization.OAuth2TokenType.ACCESS_TOKEN;
+
+public class StatelessClientCredentialsAuthorizationServiceTest {
+
+    private static final String JWT_KEY = "test-jwt-key-test-jwt-key-test-jwt-key";
+
+    private final RegisteredClient registeredClient = RegisteredClient.withId("registeredClientId")
+            .clientId("clientId")
+            .clientSecret("secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .scope("read")
+            .build();
+
+    private IOAuth2AuthorizationService delegate;
+    private JwtEncoder jwtEncoder;
+    private TokenDenylistService tokenDenylistService;
+    private StatelessClientCredentialsAuthorizationService authorizationService;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(IOAuth2AuthorizationService.class);
+        RegisteredClientRepository registeredClientRepository = mock(RegisteredClientRepository.class);
+        when(registeredClientRepository.findById("registeredClientId")).thenReturn(registeredClient);
+        when(registeredClientRepository.findByClientId("clientId")).thenReturn(registeredClient);
+        SecretKeySpec secretKey = new SecretKeySpec(JWT_KEY.getBytes(), "HMACSHA256");
+        jwtEncoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(new OctetSequenceKey.Builder(secretKey).build())));
+        JwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(secretKey).build();
+        tokenDenylistService = new TokenDenylistService(new ConcurrentMapCacheManager(), Clock.systemUTC());
+        authorizationService = new StatelessClientCredentialsAuthorizationService(delegate, registeredClientRepository,
+                jwtDecoder, tokenDenylistService);
+    }
+
+    @Test
+    public void shouldNotPersistClientCredentialsAuthorization() {
+        authorizationService.save(createAuthorization(encode("jti1", List.of("CLIENT")), false));
+
+        verify(delegate, never()).save(any());
+    }
+
+    @Test
+    public void shouldPersistOtherAuthorizations() {
+        OAuth2Authorization authorization = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .principalName("uid")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .build();
+
+        authorizationService.save(authorization);
+
+        verify(delegate).save(authorization);
+    }
+
+    @Test
+    public void shouldRebuildAuthorizationFromClientCredentialsJwt() {
+        Jwt jwt = encode("jti1", List.of("CLIENT"));
+
+        OAuth2Authorization authorization = authorizationService.findByToken(jwt.getTokenValue(), ACCESS_TOKEN);
+
+        assertNotNull(authorization);
+        assertEquals("clientId", authorization.getPrincipalName());
+        assertEquals(AuthorizationGrantType.CLIENT_CREDENTIALS, authorization.getAuthorizationGrantType());
+        assertTrue(authorization.getAccessToken().isActive());
+        assertEquals("jti1", authorization.getAccessToken().getClaims().get(JwtClaimNames.JTI));
+    }
+
+    @Test
+    public void shouldNotRebuildAuthorizationFromUserJwt() {
+        Jwt jwt = encode("jti1", List.of("LEARNER"));
+
+        assertNull(authorizationService.findByToken(jwt.getTokenValue(), ACCESS_TOKEN));
+        assertNull(authorizationService.findByToken("not-a-jwt", null));
+    }
+
+    @Test
+    public void shouldDenyRevokedToken() {
+        Jwt jwt = encode("jti1", List.of("CLIENT"));
+        assertNotNull(authorizationService.findByToken(jwt.getTokenValue(), null));
+
+        authorizationService.save(createAuthorization(jwt, true));
+
+        assertTrue(tokenDenylistService.isTokenDenied("jti1"));
+        assertNull(authorizationService.findByToken(jwt.getTokenValue(), null));
+        assertNotNull(authorizationService.findByToken(encode("jti2", List.of("CLIENT")).getTokenValue(), null));
+    }
+
+    private Jwt encode(String jti, List<String> authorities) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .id(jti)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .claim("client_id", "clientId")
+                .claim("user_name", "clientId")
+                .claim("authorities", authorities)
+                .build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims));
+    }
+
+    private OAuth2Authorization createAuthorization(Jwt jwt, boolean invalidated) {
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(BEARER, jwt.getTokenValue(), jwt.getIssuedAt(),
+                jwt.getExpiresAt());
+        return OAuth2Authorization.withRegisteredClient(registeredClient)
+                .principalName("clientId")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .token(accessToken, metadata -> {
+                    metadata.put(CLAIMS_METADATA_NAME, jwt.getClaims());
+                    metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, invalidated);
+                })
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package uk.gov.cabinetoffice.csl.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class NearCacheTest {
+
+    private static final String CHANNEL = "test_cache-invalidation";
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private final ConcurrentMapCache sharedCache = new ConcurrentMapCache("organisations");
+    private CacheInvalidationBroker node1Broker;
+    private CacheInvalidationBroker node2Broker;
+
+    @BeforeAll
+    public static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        node1Broker = createBroker("redis");
+        node2Broker = createBroker("redis");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        node1Broker.destroy();
+        node2Broker.destroy();
+    }
+
+    @Test
+    public void shouldServeRepeatedReadsFromLocalCache() {
+        Cache sharedCacheSpy = spy(sharedCache);
+        NearCache nearCache = createNearCache(sharedCacheSpy, node1Broker);
+        sharedCache.put(SimpleKey.EMPTY, List.of("example.com"));
+
+        assertEquals(List.of("example.com"), nearCache.get(SimpleKey.EMPTY, List.class));
+        assertEquals(List.of("example.com"), nearCache.get(SimpleKey.EMPTY, (Class<Object>) null));
+        assertEquals(List.of("example.com"), nearCache.get(SimpleKey.EMPTY).get());
+
+        verify(sharedCacheSpy, times(1)).get(SimpleKey.EMPTY);
+    }
+
+    @Test
+    public void shouldLoadThroughSharedCacheOnce() {
+        NearCache nearCache = createNearCache(sharedCache, node1Broker);
+        AtomicInteger loads = new AtomicInteger();
+
+        nearCache.get(SimpleKey.EMPTY, () -> List.of("org" + loads.incrementAndGet()));
+        Object value = nearCache.get(SimpleKey.EMPTY, () -> List.of("org" + loads.incrementAndGet()));
+
+        assertEquals(List.of("org1"), value);
+        assertEquals(List.of("org1"), sharedCache.get(SimpleKey.EMPTY).get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldClearLocalCacheOnOtherNodesWhenEvicted() throws InterruptedException {
+        NearCache node1Cache = createNearCache(sharedCache, node1Broker);
+        NearCache node2Cache = createNearCache(sharedCache, node2Broker);
+        node1Cache.put(SimpleKey.EMPTY, List.of("old"));
+        assertEquals(List.of("old"), node2Cache.get(SimpleKey.EMPTY).get());
+
+        // Bypasses both near caches, as another node writing to Redis would
+        sharedCache.put(SimpleKey.EMPTY, List.of("new"));
+        node1Cache.evict("unrelated");
+
+        assertEquals(List.of("new"), awaitValue(node2Cache, List.of("new")));
+    }
+
+    @Test
+    public void shouldIgnoreOwnInvalidations() throws InterruptedException {
+        AtomicInteger node1Invalidations = new AtomicInteger();
+        AtomicInteger node2Invalidations = new AtomicInteger();
+        node1Broker.addListener("registeredClients", node1Invalidations::incrementAndGet);
+        node2Broker.addListener("registeredClients", node2Invalidations::incrementAndGet);
+
+        node1Broker.publish("registeredClients");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (node2Invalidations.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, node2Invalidations.get());
+        assertEquals(0, node1Invalidations.get());
+    }
+
+    @Test
+    public void shouldOnlyWrapConfiguredCaches() {
+        ConcurrentMapCacheManager sharedCacheManager = new ConcurrentMapCacheManager("organisations", "revokedTokens");
+        NearCacheManager nearCacheManager = new NearCacheManager(sharedCacheManager, Set.of("organisations"), 10,
+                Duration.ofSeconds(60), node1Broker, new SimpleMeterRegistry());
+
+        assertInstanceOf(NearCache.class, nearCacheManager.getCache("organisations"));
+        assertSame(nearCacheManager.getCache("organisations"), nearCacheManager.getCache("organisations"));
+        assertSame(sharedCacheManager.getCache("revokedTokens"), nearCacheManager.getCache("revokedTokens"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotPublishWithoutRedisCache() {
+        ObjectProvider<RedisConnectionFactory> redisConnectionFactory = mock(ObjectProvider.class);
+        CacheInvalidationBroker broker = new CacheInvalidationBroker(redisConnectionFactory, "NONE", CHANNEL);
+
+        broker.publish("organisations");
+
+        verifyNoInteractions(redisConnectionFactory);
+    }
+
+    private Object awaitValue(NearCache nearCache, Object expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        Object value = nearCache.get(SimpleKey.EMPTY).get();
+        while (!expected.equals(value) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            value = nearCache.get(SimpleKey.EMPTY).get();
+        }
+        return value;
+    }
+
+    private NearCache createNearCache(Cache cache, CacheInvalidationBroker broker) {
+        return new NearCache(cache, Caffeine.newBuilder().maximumSize(10).build(), broker);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheInvalidationBroker createBroker(String cacheType) {
+        ObjectProvider<RedisConnectionFactory> redisConnectionFactory = mock(ObjectProvider.class);
+        when(redisConnectionFactory.getObject()).thenReturn(connectionFactory);
+        return new CacheInvalidationBroker(redisConnectionFactory, cacheType, CHANNEL);
+    }
+}
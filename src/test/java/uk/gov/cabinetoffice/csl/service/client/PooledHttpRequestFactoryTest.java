@@ -0,0 +1,87 @@
+package uk.gov.cabinetoffice.csl.service.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledHttpRequestFactoryTest {
+
+    private final Set<InetSocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private PooledHttpRequestFactory pooledHttpRequestFactory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ok", exchange -> {
+            clientAddresses.add(exchange.getRemoteAddress());
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        pooledHttpRequestFactory = new PooledHttpRequestFactory(meterRegistry);
+        ReflectionTestUtils.setField(pooledHttpRequestFactory, "maxConnections", 10);
+        ReflectionTestUtils.setField(pooledHttpRequestFactory, "maxConnectionsPerRoute", 5);
+        ReflectionTestUtils.setField(pooledHttpRequestFactory, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(pooledHttpRequestFactory, "readTimeoutMillis", 200L);
+        ReflectionTestUtils.setField(pooledHttpRequestFactory, "connectionRequestTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(pooledHttpRequestFactory, "keepAliveSeconds", 30L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pooledHttpRequestFactory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldReuseConnectionAndPublishPoolMetrics() {
+        RestTemplate restTemplate = new RestTemplate(pooledHttpRequestFactory.create("test"));
+
+        assertEquals("ok", restTemplate.getForObject(url("/ok"), String.class));
+        assertEquals("ok", restTemplate.getForObject(url("/ok"), String.class));
+
+        assertEquals(1, clientAddresses.size());
+        assertEquals(10, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "test").gauge().value());
+        assertEquals(1, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "test").tag("state", "available").gauge().value());
+    }
+
+    @Test
+    public void shouldTimeOutSlowResponse() {
+        RestTemplate restTemplate = new RestTemplate(pooledHttpRequestFactory.create("test"));
+
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(url("/slow"), String.class));
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,233 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.RequestEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.DomainsResponse;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+import uk.gov.cabinetoffice.csl.exception.ClientErrorResponseException;
+import uk.gov.cabinetoffice.csl.exception.GenericServerException;
+import uk.gov.cabinetoffice.csl.service.client.IHttpClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CivilServantRegistryClientTest {
+
+    private IHttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private CsrsCircuitBreaker circuitBreaker;
+    private CivilServantRegistryClient civilServantRegistryClient;
+
+    @BeforeEach
+    public void setUp() {
+        httpClient = mock(IHttpClient.class);
+        CsrsServiceDataTransformer csrsServiceDataTransformer = mock(CsrsServiceDataTransformer.class);
+        when(csrsServiceDataTransformer.transformOrganisations(anyList())).thenAnswer(i -> i.getArgument(0));
+        meterRegistry = new SimpleMeterRegistry();
+        ClusteredCacheLoader clusteredCacheLoader = new ClusteredCacheLoader(null, null, false, "", 0, 0, 0);
+        circuitBreaker = new CsrsCircuitBreaker(Clock.systemUTC(), meterRegistry, 3, 60000);
+        civilServantRegistryClient = new CivilServantRegistryClient(httpClient, csrsServiceDataTransformer,
+                meterRegistry, clusteredCacheLoader, circuitBreaker, new CsrsSnapshotStore(null, Clock.systemUTC(), "NONE", ""),
+                new AgencyTokenCache(new ConcurrentMapCacheManager(), meterRegistry), 2);
+        ReflectionTestUtils.setField(civilServantRegistryClient, "organisationalUnitsUrl", "/v2/organisationalUnits");
+        ReflectionTestUtils.setField(civilServantRegistryClient, "domainsUrl", "/domains");
+        ReflectionTestUtils.setField(civilServantRegistryClient, "agencyTokensUrl", "/agencyTokens");
+        ReflectionTestUtils.setField(civilServantRegistryClient, "getOrganisationsMaxPageSize", 2);
+        ReflectionTestUtils.setField(civilServantRegistryClient, "getOrganisationsMaxAttempts", 3);
+        ReflectionTestUtils.setField(civilServantRegistryClient, "getOrganisationsRetryBackoffMillis", 1L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        civilServantRegistryClient.shutdown();
+    }
+
+    @Test
+    public void shouldFetchAllPagesAndRetryFailedPage() {
+        AtomicInteger page1Attempts = new AtomicInteger();
+        mockOrganisationsResponses(page -> {
+            if (page == 1 && page1Attempts.incrementAndGet() == 1) {
+                throw new GenericServerException("System error");
+            }
+            return createResponse(page);
+        });
+
+        List<OrganisationalUnit> organisations = civilServantRegistryClient.getAllOrganisations();
+
+        assertEquals(List.of(1, 2, 3, 4, 5), organisations.stream().map(OrganisationalUnit::getId).toList());
+        assertEquals(2, page1Attempts.get());
+        assertEquals(3, meterRegistry.timer("csrs.organisations.page", "outcome", "success").count());
+        assertEquals(1, meterRegistry.timer("csrs.organisations.page", "outcome", "failure").count());
+        assertEquals(1, meterRegistry.timer("csrs.organisations.fetch").count());
+    }
+
+    @Test
+    public void shouldFailWhenPageFailsOnEveryAttempt() {
+        mockOrganisationsResponses(page -> {
+            if (page == 2) {
+                throw new GenericServerException("System error");
+            }
+            return createResponse(page);
+        });
+
+        assertThrows(CompletionException.class, () -> civilServantRegistryClient.getAllOrganisations());
+        assertEquals(3, meterRegistry.timer("csrs.organisations.page", "outcome", "failure").count());
+    }
+
+    @Test
+    public void shouldServeLastKnownGoodSnapshotWhenFetchFails() {
+        mockOrganisationsResponses(this::createResponse);
+        List<OrganisationalUnit> fetched = civilServantRegistryClient.getAllOrganisations();
+        Instant fetchedAt = civilServantRegistryClient.getOrganisationsFetchedAt();
+
+        mockOrganisationsResponses(page -> {
+            throw new GenericServerException("System error");
+        });
+
+        assertSame(fetched, civilServantRegistryClient.getAllOrganisations());
+        assertEquals(1, meterRegistry.counter("csrs.snapshot.served", "cache", "organisations").count());
+        assertNotNull(fetchedAt);
+        assertEquals(fetchedAt, civilServantRegistryClient.getOrganisationsFetchedAt());
+        assertThrows(CompletionException.class, () -> civilServantRegistryClient.refreshOrganisationsCache());
+    }
+
+    @Test
+    public void shouldStopCallingRegistryWhileCircuitBreakerIsOpen() {
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(DomainsResponse.class)))
+                .thenThrow(new GenericServerException("System error"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(GenericServerException.class, () -> civilServantRegistryClient.getAllowListDomains());
+        }
+        assertFalse(civilServantRegistryClient.isDomainInAnAgencyToken("example.com"));
+
+        assertEquals(CsrsCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(httpClient, times(3)).executeRequest(any(RequestEntity.class), any());
+        assertEquals(2, meterRegistry.counter("csrs.circuit_breaker.rejected").count());
+    }
+
+    @Test
+    public void shouldNotCountClientErrorsAsCircuitBreakerFailures() {
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(AgencyToken.class)))
+                .thenThrow(new ClientErrorResponseException("System error", 404));
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(Void.class)))
+                .thenThrow(new ClientErrorResponseException("System error", 400));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(civilServantRegistryClient.getAgencyTokenWithUid("uid" + i).isEmpty());
+            assertThrows(GenericServerException.class,
+                    () -> civilServantRegistryClient.removeOrganisationalUnitFromCivilServant("uid1"));
+        }
+
+        assertEquals(CsrsCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldNotCallRegistryForAgencyTokensWhileCircuitBreakerIsOpen() {
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(Void.class)))
+                .thenThrow(new GenericServerException("System error"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(GenericServerException.class,
+                    () -> civilServantRegistryClient.removeOrganisationalUnitFromCivilServant("uid1"));
+        }
+        assertTrue(civilServantRegistryClient.getAgencyTokenWithUid("uid1").isEmpty());
+        assertTrue(civilServantRegistryClient.getAgencyToken("example.com", "token1", "org1").isEmpty());
+
+        assertEquals(CsrsCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(httpClient, never()).executeRequest(any(RequestEntity.class), eq(AgencyToken.class));
+        assertEquals(2, meterRegistry.counter("csrs.circuit_breaker.rejected").count());
+    }
+
+    @Test
+    public void shouldCacheAgencyTokenAnswers() {
+        AgencyToken agencyToken = new AgencyToken("uid1", "token1", 10L, List.of(new Domain(1L, "example.com")));
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(AgencyToken.class))).thenReturn(agencyToken);
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(Boolean.class))).thenReturn(false);
+
+        assertTrue(civilServantRegistryClient.isAgencyTokenUidValidForDomain("uid1", "example.com"));
+        assertTrue(civilServantRegistryClient.isAgencyTokenUidValidForDomain("uid1", "example.com"));
+        assertFalse(civilServantRegistryClient.isDomainInAnAgencyToken("Example.com"));
+        assertFalse(civilServantRegistryClient.isDomainInAnAgencyToken("example.com"));
+
+        verify(httpClient, times(1)).executeRequest(any(RequestEntity.class), eq(AgencyToken.class));
+        verify(httpClient, times(1)).executeRequest(any(RequestEntity.class), eq(Boolean.class));
+        assertEquals(1, meterRegistry.counter("csrs.agency_token.cache", "result", "negative_hit").count());
+    }
+
+    @Test
+    public void shouldNotCacheFailedAgencyTokenLookups() {
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(Boolean.class)))
+                .thenThrow(new GenericServerException("System error"))
+                .thenReturn(true);
+
+        assertFalse(civilServantRegistryClient.isDomainInAnAgencyToken("example.com"));
+        assertTrue(civilServantRegistryClient.isDomainInAnAgencyToken("example.com"));
+        assertTrue(civilServantRegistryClient.isDomainInAnAgencyToken("example.com"));
+
+        verify(httpClient, times(2)).executeRequest(any(RequestEntity.class), eq(Boolean.class));
+    }
+
+    @Test
+    public void shouldCacheAgencyTokenNotFoundAsNegativeAnswer() {
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(AgencyToken.class)))
+                .thenThrow(new ClientErrorResponseException("System error", 404));
+
+        assertTrue(civilServantRegistryClient.getAgencyTokenWithUid("uid1").isEmpty());
+        assertTrue(civilServantRegistryClient.getAgencyTokenWithUid("uid1").isEmpty());
+
+        verify(httpClient, times(1)).executeRequest(any(RequestEntity.class), eq(AgencyToken.class));
+        assertEquals(1, meterRegistry.counter("csrs.agency_token.cache", "result", "negative_hit").count());
+    }
+
+    @Test
+    public void shouldNotCacheAgencyTokenServerErrors() {
+        AgencyToken agencyToken = new AgencyToken("uid1", "token1", 10L, List.of(new Domain(1L, "example.com")));
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(AgencyToken.class)))
+                .thenThrow(new GenericServerException("System error"))
+                .thenReturn(agencyToken);
+
+        assertTrue(civilServantRegistryClient.getAgencyTokenWithUid("uid1").isEmpty());
+        assertEquals(agencyToken, civilServantRegistryClient.getAgencyTokenWithUid("uid1").orElseThrow());
+
+        verify(httpClient, times(2)).executeRequest(any(RequestEntity.class), eq(AgencyToken.class));
+    }
+
+    private void mockOrganisationsResponses(IntFunction<GetOrganisationsResponse> pageResponse) {
+        when(httpClient.executeRequest(any(RequestEntity.class), eq(GetOrganisationsResponse.class)))
+                .thenAnswer(invocation -> {
+                    String url = invocation.<RequestEntity.UriTemplateRequestEntity<?>>getArgument(0).getUriTemplate();
+                    if (url.contains("size=1&")) {
+                        return new GetOrganisationsResponse(List.of(), 0, 5, 5, 1);
+                    }
+                    int page = Integer.parseInt(url.replaceAll(".*page=(\\d+).*", "$1"));
+                    return pageResponse.apply(page);
+                });
+    }
+
+    private GetOrganisationsResponse createResponse(int page) {
+        List<OrganisationalUnit> content = IntStream.rangeClosed(page * 2 + 1, Math.min(page * 2 + 2, 5))
+                .mapToObj(id -> {
+                    OrganisationalUnit organisationalUnit = new OrganisationalUnit();
+                    organisationalUnit.setId(id);
+                    return organisationalUnit;
+                }).toList();
+        return new GetOrganisationsResponse(content, page, 3, 5, 2);
+    }
+}
@@ -0,0 +1,165 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClusteredCacheLoaderTest {
+
+    private static final String LOCK_KEY = "test_lock:organisations";
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private ConcurrentMapCacheManager cacheManager;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    public static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        connectionFactory.getConnection().serverCommands().flushAll();
+        cacheManager = new ConcurrentMapCacheManager("organisations");
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @Test
+    public void shouldLoadAndReleaseLockWhenLockIsFree() {
+        List<String> loaded = createLoader(true).load("organisations", SimpleKey.EMPTY, this::load);
+
+        assertEquals(List.of("loaded"), loaded);
+        assertEquals(1, loads.get());
+        assertFalse(redisTemplate.hasKey(LOCK_KEY));
+    }
+
+    @Test
+    public void shouldReturnEntryLoadedByLockHolder() {
+        redisTemplate.opsForValue().set(LOCK_KEY, "otherNode", ofSeconds(10));
+        CompletableFuture.runAsync(() -> cacheManager.getCache("organisations").put(SimpleKey.EMPTY, List.of("other")),
+                CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        List<String> loaded = createLoader(true).load("organisations", SimpleKey.EMPTY, this::load);
+
+        assertEquals(List.of("other"), loaded);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void shouldLoadWhenLockHolderReleasesWithoutLoading() {
+        redisTemplate.opsForValue().set(LOCK_KEY, "otherNode", ofSeconds(10));
+        CompletableFuture.runAsync(() -> redisTemplate.delete(LOCK_KEY),
+                CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        List<String> loaded = createLoader(true).load("organisations", SimpleKey.EMPTY, this::load);
+
+        assertEquals(List.of("loaded"), loaded);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldCacheEntryBeforeReleasingLock() {
+        List<Boolean> lockedWhenCached = new ArrayList<>();
+        cacheManager = new ConcurrentMapCacheManager("organisations") {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public void put(Object key, Object value) {
+                        lockedWhenCached.add(redisTemplate.hasKey(LOCK_KEY));
+                        super.put(key, value);
+                    }
+                };
+            }
+        };
+
+        createLoader(true).load("organisations", SimpleKey.EMPTY, this::load);
+
+        assertEquals(List.of(true), lockedWhenCached);
+        assertEquals(List.of("loaded"), cacheManager.getCache("organisations").get(SimpleKey.EMPTY).get());
+    }
+
+    @Test
+    public void shouldLoadOnceWhenTwoNodesMissTogether() throws InterruptedException {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CompletableFuture<List<String>> firstNode = CompletableFuture.supplyAsync(() ->
+                createLoader(true).load("organisations", SimpleKey.EMPTY, () -> slowLoad(loadStarted)));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        List<String> loaded = createLoader(true).load("organisations", SimpleKey.EMPTY, this::load);
+
+        assertEquals(List.of("loaded"), loaded);
+        assertEquals(List.of("loaded"), firstNode.join());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldLoadWithoutLockWhenDisabled() {
+        redisTemplate.opsForValue().set(LOCK_KEY, "otherNode", ofSeconds(10));
+
+        assertEquals(List.of("loaded"), createLoader(false).load("organisations", SimpleKey.EMPTY, this::load));
+    }
+
+    private List<String> load() {
+        loads.incrementAndGet();
+        return List.of("loaded");
+    }
+
+    private List<String> slowLoad(CountDownLatch loadStarted) {
+        loadStarted.countDown();
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return load();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClusteredCacheLoader createLoader(boolean enabled) {
+        ObjectProvider<RedisConnectionFactory> redisConnectionFactory = mock(ObjectProvider.class);
+        when(redisConnectionFactory.getObject()).thenReturn(connectionFactory);
+        return new ClusteredCacheLoader(redisConnectionFactory, cacheManager, enabled, "test_", 10000, 5000, 20);
+    }
+}
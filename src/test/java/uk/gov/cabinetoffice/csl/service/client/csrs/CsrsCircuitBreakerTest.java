@@ -0,0 +1,73 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.cabinetoffice.csl.service.client.csrs.CsrsCircuitBreaker.State.*;
+
+public class CsrsCircuitBreakerTest {
+
+    private final Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    private Clock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private CsrsCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    public void setUp() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(now);
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CsrsCircuitBreaker(clock, meterRegistry, 2, 30000);
+    }
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailures() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        assertEquals(CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(OPEN.ordinal(), meterRegistry.get("csrs.circuit_breaker.state").gauge().value());
+    }
+
+    @Test
+    public void shouldLetOneProbeThroughOnceOpenDurationHasPassed() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        when(clock.instant()).thenReturn(now.plusSeconds(30));
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess();
+
+        assertEquals(CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void shouldReopenWhenProbeFails() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        when(clock.instant()).thenReturn(now.plusSeconds(30));
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+}
@@ -0,0 +1,108 @@
+package uk.gov.cabinetoffice.csl.service.client.csrs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import uk.gov.cabinetoffice.csl.dto.AgencyToken;
+import uk.gov.cabinetoffice.csl.dto.Domain;
+import uk.gov.cabinetoffice.csl.dto.OrganisationalUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrganisationalUnitsRedisSerializerTest {
+
+    private final OrganisationalUnitsRedisSerializer serializer = new OrganisationalUnitsRedisSerializer();
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+    private final CsrsServiceDataTransformer csrsServiceDataTransformer = new CsrsServiceDataTransformer();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRoundTripFlattenedOrganisations() {
+        List<OrganisationalUnit> organisationalUnits = createOrganisations(3, 3);
+
+        List<OrganisationalUnit> result = (List<OrganisationalUnit>) serializer.deserialize(
+                serializer.serialize(organisationalUnits));
+
+        assertEquals(organisationalUnits.size(), result.size());
+        for (int i = 0; i < organisationalUnits.size(); i++) {
+            OrganisationalUnit expected = organisationalUnits.get(i);
+            OrganisationalUnit actual = result.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getCode(), actual.getCode());
+            assertEquals(expected.getFormattedName(), actual.getFormattedName());
+            assertEquals(expected.getParentId(), actual.getParentId());
+            assertEquals(expected.getLinkedDomains(), actual.getLinkedDomains());
+            assertEquals(expected.getAgencyToken(), actual.getAgencyToken());
+            assertEquals(codes(expected.getHierarchyAsFlatList()), codes(actual.getHierarchyAsFlatList()));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldWriteSharedAgencyTokenOnce() {
+        List<OrganisationalUnit> organisationalUnits = createOrganisations(2, 3);
+
+        List<OrganisationalUnit> result = (List<OrganisationalUnit>) serializer.deserialize(
+                serializer.serialize(organisationalUnits));
+
+        AgencyToken agencyToken = result.get(0).getAgencyToken();
+        assertNotNull(agencyToken);
+        result.stream()
+                .filter(o -> o.getFormattedName().startsWith("Department 0"))
+                .forEach(o -> assertSame(agencyToken, o.getAgencyToken()));
+    }
+
+    @Test
+    public void shouldReadValuesWrittenWithJdkSerialization() {
+        List<OrganisationalUnit> organisationalUnits = createOrganisations(2, 2);
+
+        Object result = serializer.deserialize(jdkSerializer.serialize(organisationalUnits));
+
+        assertEquals(organisationalUnits, result);
+    }
+
+    @Test
+    public void shouldBeSmallerThanJdkSerialization() {
+        List<OrganisationalUnit> organisationalUnits = createOrganisations(20, 6);
+
+        int compactSize = serializer.serialize(organisationalUnits).length;
+        int jdkSize = jdkSerializer.serialize(organisationalUnits).length;
+
+        assertTrue(compactSize < jdkSize, "compact " + compactSize + " bytes, jdk " + jdkSize + " bytes");
+    }
+
+    // One chain of depth units per department, every unit inheriting the department's agency token
+    private List<OrganisationalUnit> createOrganisations(int departments, int depth) {
+        List<OrganisationalUnit> organisationalUnits = new ArrayList<>();
+        int id = 1;
+        for (int department = 0; department < departments; department++) {
+            AgencyToken agencyToken = new AgencyToken("uid" + department, "token" + department, 100L,
+                    List.of(new Domain((long) department, "agency" + department + ".gov.uk")));
+            Integer parentId = null;
+            String formattedName = "Department " + department;
+            for (int level = 0; level < depth; level++) {
+                OrganisationalUnit organisationalUnit = new OrganisationalUnit();
+                organisationalUnit.setId(id);
+                organisationalUnit.setParentId(parentId);
+                organisationalUnit.setCode("ORG" + id);
+                organisationalUnit.setName("Unit " + id);
+                organisationalUnit.setFormattedName(formattedName);
+                organisationalUnit.setHref("/organisationalUnits/" + id);
+                organisationalUnit.setDomains(List.of(new Domain((long) id, "unit" + id + ".gov.uk")));
+                if (level == 0) {
+                    organisationalUnit.setAgencyToken(agencyToken);
+                }
+                organisationalUnits.add(organisationalUnit);
+                parentId = id++;
+                formattedName = formattedName + " | Unit " + parentId;
+            }
+        }
+        return csrsServiceDataTransformer.transformOrganisations(organisationalUnits);
+    }
+
+    private List<String> codes(List<OrganisationalUnit> organisationalUnits) {
+        return organisationalUnits.stream().map(OrganisationalUnit::getCode).toList();
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.cabinetoffice.csl.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionUtilsTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldRunTaskStraightAwayWithoutTransaction() {
+        AtomicBoolean ran = new AtomicBoolean();
+        TransactionUtils.runAfterCommit(() -> ran.set(true));
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void shouldRunTaskOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        AtomicBoolean ran = new AtomicBoolean();
+        TransactionUtils.runAfterCommit(() -> ran.set(true));
+        assertFalse(ran.get());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(ran.get());
+    }
+}